@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Support for the default implementations of the asynchronous operations of the API, which run the equivalent
+ * blocking operation on an executor. Virtual threads are used where the JRE provides them.
+ */
+class AsyncExecutionSupport
+{
+    /** Standard hint for the query timeout, in milliseconds. */
+    static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private AsyncExecutionSupport()
+    {
+    }
+
+    /**
+     * Create an executor that runs each task on a new virtual thread.
+     * @return The executor, or null if the JRE does not provide virtual threads (pre Java 21)
+     */
+    static ExecutorService newVirtualThreadExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Accessor for the executor used by asynchronous operations when none is specified.
+     * @return The default executor
+     */
+    static Executor getDefaultExecutor()
+    {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Run the (blocking) query operation asynchronously on the executor.
+     * If the query has a timeout hint set and the operation has not completed within that time, or if the returned
+     * future is cancelled, the thread running the operation is interrupted and the future completes exceptionally
+     * with a <code>QueryTimeoutException</code>. The future is only ever completed by the thread running the operation,
+     * once the operation has returned (or by the thread cancelling it, when it has not started), so dependent stages
+     * never run on the timer thread nor while the query is still using the entity manager.
+     * @param query The query
+     * @param executor The executor to run on (if null then the default executor)
+     * @param operation The operation
+     * @return Future for the result of the operation
+     * @param <T> Type of the result
+     */
+    static <T> CompletableFuture<T> execute(Query query, Executor executor, Supplier<T> operation)
+    {
+        QueryFuture<T> future = new QueryFuture<>(query);
+        long timeout = getTimeout(query);
+        if (timeout > 0)
+        {
+            future.timeout = TimerHolder.TIMER.schedule(() -> future.abort("Query execution exceeded the timeout of " + timeout + "ms", true, false),
+                timeout, TimeUnit.MILLISECONDS);
+        }
+
+        (executor != null ? executor : getDefaultExecutor()).execute(() -> future.run(operation));
+        return future;
+    }
+
+    private static long getTimeout(Query query)
+    {
+        Map<String, Object> hints = query.getHints();
+        Object value = (hints != null) ? hints.get(QUERY_TIMEOUT_HINT) : null;
+        if (value instanceof Number)
+        {
+            return ((Number) value).longValue();
+        }
+        else if (value instanceof String)
+        {
+            try
+            {
+                return Long.parseLong(((String) value).trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                // Not a valid timeout, so ignore it
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Future for an asynchronous query operation, where cancellation and timeout complete it with a
+     * <code>QueryTimeoutException</code> rather than a <code>CancellationException</code>.
+     */
+    private static class QueryFuture<T> extends CompletableFuture<T>
+    {
+        private final Query query;
+
+        /** Whether the operation has been started by the executor, or skipped because cancelled before that. */
+        private boolean started;
+
+        /** Thread running the operation, while it is running. */
+        private Thread runner;
+
+        /** Message for the QueryTimeoutException to complete with, once aborted. */
+        private String abortMessage;
+
+        volatile ScheduledFuture<?> timeout;
+
+        QueryFuture(Query query)
+        {
+            this.query = query;
+        }
+
+        void run(Supplier<T> operation)
+        {
+            String message;
+            synchronized (this)
+            {
+                if (started)
+                {
+                    // Cancelled before starting
+                    return;
+                }
+                started = true;
+                message = abortMessage;
+                if (message == null)
+                {
+                    runner = Thread.currentThread();
+                }
+            }
+
+            T result = null;
+            Throwable error = null;
+            if (message == null)
+            {
+                try
+                {
+                    result = operation.get();
+                }
+                catch (Throwable t)
+                {
+                    error = t;
+                }
+                finally
+                {
+                    synchronized (this)
+                    {
+                        runner = null;
+                        message = abortMessage;
+                        // Clear any interrupt from an abort that raced with completion, since the thread may be pooled
+                        Thread.interrupted();
+                    }
+                }
+            } // else timed out before starting
+
+            ScheduledFuture<?> timer = timeout;
+            if (timer != null)
+            {
+                timer.cancel(false);
+            }
+
+            // Only complete now the operation has returned, so that dependent stages can use the entity manager
+            if (message != null)
+            {
+                completeExceptionally(new QueryTimeoutException(message, null, query));
+            }
+            else if (error != null)
+            {
+                completeExceptionally(error);
+            }
+            else
+            {
+                complete(result);
+            }
+        }
+
+        /**
+         * Abort the operation, so that the future completes exceptionally with a QueryTimeoutException.
+         * If the operation is running it is interrupted (if requested) and the future completes when it returns. If
+         * not yet started, the future completes when the executor gets to it, unless it is being cancelled, in which
+         * case it completes immediately on the calling thread.
+         * @param message Message for the exception
+         * @param interrupt Whether to interrupt the thread running the operation
+         * @param cancel Whether the future is being cancelled
+         * @return Whether aborted, as opposed to already aborted or completing
+         */
+        boolean abort(String message, boolean interrupt, boolean cancel)
+        {
+            synchronized (this)
+            {
+                if (isDone() || abortMessage != null || (started && runner == null))
+                {
+                    return false;
+                }
+                abortMessage = message;
+                if (runner != null)
+                {
+                    if (interrupt)
+                    {
+                        runner.interrupt();
+                    }
+                    return true;
+                }
+                if (!cancel)
+                {
+                    // Timed out before starting, so the executor completes it when it gets to it
+                    return true;
+                }
+                started = true;
+            }
+
+            // Cancelled before starting, so nothing is using the entity manager
+            completeExceptionally(new QueryTimeoutException(message, null, query));
+            ScheduledFuture<?> timer = timeout;
+            if (timer != null)
+            {
+                timer.cancel(false);
+            }
+            return true;
+        }
+
+        /**
+         * Cancel the operation. When it is running, this interrupts it if requested and the future completes (with a
+         * QueryTimeoutException) when it returns, rather than immediately.
+         * @param mayInterruptIfRunning Whether to interrupt the thread running the operation
+         * @return Whether cancelled
+         */
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            return abort("Query execution was cancelled", mayInterruptIfRunning, true);
+        }
+    }
+
+    /**
+     * Lazily created default executor.
+     */
+    private static class DefaultExecutorHolder
+    {
+        static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor()
+        {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null)
+            {
+                return executor;
+            }
+            return Executors.newCachedThreadPool(new DaemonThreadFactory("javax.persistence-async-"));
+        }
+    }
+
+    /**
+     * Lazily created timer for query timeouts.
+     */
+    private static class TimerHolder
+    {
+        static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+        private static ScheduledThreadPoolExecutor createTimer()
+        {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("javax.persistence-timeout-"));
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+
+    /**
+     * Factory for daemon threads, so that the executors do not prevent JVM shutdown.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory
+    {
+        private final String prefix;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -36,4 +36,62 @@ public interface AttributeNode<T>
      * defined
      */
     public Map<Class, Subgraph> getKeySubgraphs();
+
+    /**
+     * Return the batch size used when lazily fetching this attribute, as set by <code>setBatchSize</code>.
+     * See {@link BatchFetch}.
+     * <p>
+     * By default this method returns 0.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return the batch size, or 0 if not specified (in which case any <code>BatchFetch</code> mapping applies)
+     */
+    public default int getBatchSize()
+    {
+        return 0;
+    }
+
+    /**
+     * Specify that when this attribute is fetched lazily, it is batch fetched for up to the specified number of
+     * entities in the persistence context per datastore access, overriding any <code>BatchFetch</code> mapping
+     * for operations using this graph. See {@link BatchFetch}.
+     * <p>
+     * By default this method throws <code>PersistenceException</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param batchSize the batch size
+     * @return the same attribute node
+     * @throws IllegalArgumentException if the batch size is not positive
+     * @throws PersistenceException if the provider does not support batch fetching
+     */
+    public default AttributeNode<T> setBatchSize(int batchSize)
+    {
+        throw new PersistenceException("Persistence provider does not support batch fetching of attribute " + getAttributeName());
+    }
+
+    /**
+     * Return the fetch mode used for this attribute, as set by <code>setFetchMode</code>.
+     * <p>
+     * By default this method returns <code>FetchMode.DEFAULT</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return the fetch mode, or <code>FetchMode.DEFAULT</code> if not specified (in which case any mapping applies)
+     */
+    public default FetchMode getFetchMode()
+    {
+        return FetchMode.DEFAULT;
+    }
+
+    /**
+     * Specify how this attribute is to be fetched from the database, overriding the <code>fetchMode</code> of
+     * its mapping for operations using this graph.
+     * <p>
+     * By default this method throws <code>PersistenceException</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param fetchMode the fetch mode
+     * @return the same attribute node
+     * @throws IllegalArgumentException if the fetch mode is not applicable to the attribute
+     * @throws PersistenceException if the provider does not support specifying the fetch mode
+     */
+    public default AttributeNode<T> setFetchMode(FetchMode fetchMode)
+    {
+        throw new PersistenceException("Persistence provider does not support setting the fetch mode of attribute " + getAttributeName());
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Specifies that a lazily fetched relationship or element collection is to be batch fetched. When the
+ * attribute is first accessed on one entity in the persistence context, the persistence provider also loads
+ * the same attribute for other entities in the persistence context on which it is still unloaded, up to the
+ * specified number of entities per datastore access. This avoids issuing one secondary select per entity
+ * (the "N+1 selects" problem) when iterating over a list of entities.
+ * <p>
+ * When specified on an entity class, uninitialised references (proxies) to that entity are batch loaded in
+ * the same way.
+ * <p>
+ * The same can be specified for an attribute of an entity graph using <code>AttributeNode.setBatchSize</code>,
+ * or the <code>batchSize</code> element of <code>NamedAttributeNode</code>.
+ *
+ * <pre>
+ *    Example:
+ *
+ *    &#064;OneToMany(mappedBy="customer", fetch=LAZY)
+ *    &#064;BatchFetch(size=50)
+ *    public Set&#060;Order&#062; getOrders() { return orders; }
+ * </pre>
+ *
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see FetchType
+ * @see FetchMode#BATCH
+ * @see OneToMany
+ * @see ManyToMany
+ * @see ManyToOne
+ * @see OneToOne
+ * @see ElementCollection
+ */
+@Target({TYPE, METHOD, FIELD})
+@Retention(RUNTIME)
+public @interface BatchFetch
+{
+    /**
+     * The maximum number of entities whose attribute (or references) are loaded per datastore access.
+     * @return the batch size
+     */
+    int size();
+}
@@ -9,6 +9,17 @@
  */
 package javax.persistence;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.Type;
+
 /**
  * Interface used to interact with the second-level cache. If a cache is not in use, the methods of this
  * interface have no effect, except for <code>contains</code>, which returns false.
@@ -43,6 +54,210 @@ public interface Cache
      */
     public void evictAll();
 
+    /**
+     * Remove the cached collection of the given attribute for the given owning entity from the cache.
+     * See {@link CacheableCollection}. The attribute must be declared by an entity class; for an attribute declared
+     * by a mapped superclass or embeddable use {@link #evictCollection(Class, PluralAttribute, Object)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param attribute collection-valued attribute
+     * @param ownerPrimaryKey primary key of the owning entity
+     * @throws IllegalArgumentException if the attribute is not declared by an entity class
+     */
+    public default void evictCollection(PluralAttribute<?, ?, ?> attribute, Object ownerPrimaryKey)
+    {
+        evictCollection(getDeclaringEntityClass(attribute), attribute, ownerPrimaryKey);
+    }
+
+    /**
+     * Remove the cached collection of the given attribute for the given owning entity from the cache.
+     * See {@link CacheableCollection}.
+     * By default this method evicts the owning entity, since that is where a persistence provider without a
+     * separate collection cache holds the state of the collection.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param ownerClass entity class of the owning entity (which may be a subclass of the declaring class)
+     * @param attribute collection-valued attribute
+     * @param ownerPrimaryKey primary key of the owning entity
+     */
+    public default void evictCollection(Class<?> ownerClass, PluralAttribute<?, ?, ?> attribute, Object ownerPrimaryKey)
+    {
+        evict(ownerClass, ownerPrimaryKey);
+    }
+
+    /**
+     * Remove the cached collections of the given attribute, for all owning entities, from the cache.
+     * The attribute must be declared by an entity class; for an attribute declared by a mapped superclass or
+     * embeddable use {@link #evictCollection(Class, PluralAttribute)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param attribute collection-valued attribute
+     * @throws IllegalArgumentException if the attribute is not declared by an entity class
+     */
+    public default void evictCollection(PluralAttribute<?, ?, ?> attribute)
+    {
+        evictCollection(getDeclaringEntityClass(attribute), attribute);
+    }
+
+    /**
+     * Remove the cached collections of the given attribute, for all owning entities of the specified class (and its
+     * subclasses), from the cache.
+     * By default this method evicts the owning entity class (and its subclasses).
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param ownerClass entity class of the owning entities
+     * @param attribute collection-valued attribute
+     */
+    public default void evictCollection(Class<?> ownerClass, PluralAttribute<?, ?, ?> attribute)
+    {
+        evict(ownerClass);
+    }
+
+    private static Class<?> getDeclaringEntityClass(PluralAttribute<?, ?, ?> attribute)
+    {
+        ManagedType<?> declaringType = attribute.getDeclaringType();
+        if (declaringType.getPersistenceType() != Type.PersistenceType.ENTITY)
+        {
+            throw new IllegalArgumentException("Attribute " + attribute.getName() + " is declared by " + declaringType.getJavaType().getName() +
+                " which is not an entity, so the owning entity class must be specified");
+        }
+        return declaringType.getJavaType();
+    }
+
+    /**
+     * Remove the data for the given entities from the cache.
+     * By default this method calls <code>evict</code> for each primary key, however the persistence provider may
+     * choose to override this method to remove them in one operation.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param cls entity class
+     * @param primaryKeys primary keys
+     */
+    public default void evictAll(Class cls, Collection<?> primaryKeys)
+    {
+        for (Object primaryKey : primaryKeys)
+        {
+            evict(cls, primaryKey);
+        }
+    }
+
+    /**
+     * Load the given entities into the cache, using the specified entity manager to read those not already
+     * cached from the datastore. Where the provider reports <code>EntityManager.getManagedEntityCount</code>, the
+     * entities read are detached from the entity manager, so the persistence context doesn't grow with the number of
+     * entities; instances that the entity manager was already managing are left managed (and are not read, so not
+     * cached if not already). Use a dedicated entity manager (as <code>warmAsync</code> does) to load many entities.
+     * <p>
+     * By default this method calls <code>find</code> for each primary key not in the cache, with the
+     * <code>javax.persistence.cache.storeMode</code> property set to <code>USE</code>, however the persistence
+     * provider may choose to override this method to read the entities in batches.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param em entity manager to read the entities with
+     * @param cls entity class
+     * @param primaryKeys primary keys
+     * @return the number of entities now in the cache (i.e excluding primary keys for which no entity exists)
+     * @throws PersistenceException if reading from the datastore fails
+     */
+    public default int warm(EntityManager em, Class cls, Collection<?> primaryKeys)
+    {
+        return warm(em, cls, primaryKeys, null, false);
+    }
+
+    /**
+     * Load the given entities into the cache asynchronously, using a new entity manager of the specified factory.
+     * See {@link #warm(EntityManager, Class, Collection)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param emf entity manager factory to create the entity manager from
+     * @param cls entity class
+     * @param primaryKeys primary keys
+     * @param executor the executor to load on (null implies the default executor, using virtual threads where available)
+     * @param progress consumer notified with the number of primary keys processed so far as loading proceeds
+     * (may be null)
+     * @return a stage completing with the number of entities now in the cache
+     */
+    public default CompletionStage<Integer> warmAsync(EntityManagerFactory emf, Class cls, Collection<?> primaryKeys,
+            Executor executor, IntConsumer progress)
+    {
+        return CompletableFuture.supplyAsync(() ->
+        {
+            try (EntityManager em = emf.createEntityManager())
+            {
+                return warm(em, cls, primaryKeys, progress, true);
+            }
+        }, (executor != null) ? executor : AsyncExecutionSupport.getDefaultExecutor());
+    }
+
+    /**
+     * Load the given entities into the cache.
+     * @param em entity manager to read the entities with
+     * @param cls entity class
+     * @param primaryKeys primary keys
+     * @param progress consumer notified with the number of primary keys processed so far (may be null)
+     * @param dedicated whether the entity manager was created for this load, so has no instances of the caller
+     * @return the number of entities now in the cache
+     */
+    private int warm(EntityManager em, Class<?> cls, Collection<?> primaryKeys, IntConsumer progress, boolean dedicated)
+    {
+        Map<String, Object> props = new HashMap<>();
+        props.put("javax.persistence.cache.retrieveMode", CacheRetrieveMode.USE);
+        props.put("javax.persistence.cache.storeMode", CacheStoreMode.USE);
+
+        int numCached = 0;
+        int numProcessed = 0;
+        for (Object primaryKey : primaryKeys)
+        {
+            if (contains(cls, primaryKey))
+            {
+                numCached++;
+            }
+            else
+            {
+                long numManaged = dedicated ? 0 : em.getManagedEntityCount();
+                Object entity = em.find(cls, primaryKey, props);
+                if (entity != null)
+                {
+                    // Only detach an instance read by this find, since one the caller was already managing may have
+                    // unflushed changes
+                    if (dedicated || (numManaged >= 0 && em.getManagedEntityCount() > numManaged))
+                    {
+                        em.detach(entity);
+                    }
+                    numCached++;
+                }
+            }
+
+            // Report progress every 100 primary keys, and on completion
+            numProcessed++;
+            if (progress != null && (numProcessed % 100 == 0 || numProcessed == primaryKeys.size()))
+            {
+                progress.accept(numProcessed);
+            }
+        }
+        return numCached;
+    }
+
+    /**
+     * Return the statistics of the cache, with the statistics of each entity class available through
+     * <code>getEntityStatistics</code>. The returned object is a live view, so can be retained and read periodically
+     * (e.g. for export to a metrics system), using <code>reset</code> between reads if deltas are required.
+     * Persistence providers may require statistics to be enabled for the persistence unit, since recording adds
+     * a small overhead to cache accesses.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return the cache statistics
+     * @throws PersistenceException if the provider does not support cache statistics
+     */
+    public default CacheStatistics getStatistics()
+    {
+        throw new PersistenceException("Persistence provider does not support cache statistics");
+    }
+
+    /**
+     * Return the statistics of the cache for the specified entity class.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param cls entity class
+     * @return the cache statistics for the class, or null if there have been no cache accesses for it
+     * @throws PersistenceException if the provider does not support cache statistics
+     */
+    public default CacheStatistics getStatistics(Class cls)
+    {
+        return getStatistics().getEntityStatistics().get(cls);
+    }
+
     /**
      * Return an object of the specified type to allow access to the provider-specific API. If the provider's
      * Cache implementation does not support the specified class, the PersistenceException is thrown.
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+/**
+ * Defines how the second-level cache entries of an entity are kept consistent with concurrent transactions.
+ * The stronger strategies cost more on writes, so the strategy is chosen per cache region using
+ * {@link CacheRegion#concurrencyStrategy()}.
+ *
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see CacheRegion
+ */
+public enum CacheConcurrencyStrategy {
+
+    /** The persistence provider chooses the strategy. */
+    DEFAULT,
+
+    /**
+     * The entities are never updated, so entries never need invalidating. Suitable for reference data.
+     * Updating a cached entity results in a <code>PersistenceException</code>.
+     */
+    READ_ONLY,
+
+    /**
+     * Entries are invalidated after the updating transaction commits, with no locking, so a concurrent
+     * transaction can read stale data for a short period. Suitable for data that is rarely updated.
+     */
+    NONSTRICT_READ_WRITE,
+
+    /**
+     * Entries are locked in the cache while being updated and replaced after the updating transaction commits,
+     * so that concurrent transactions never read stale data (read committed isolation).
+     */
+    READ_WRITE,
+
+    /**
+     * The cache participates in the (JTA) transaction, so that entries are updated atomically with the
+     * datastore. Requires a transactional cache implementation.
+     */
+    TRANSACTIONAL
+}
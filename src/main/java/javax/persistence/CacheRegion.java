@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Specifies the second-level cache region of an entity, and how that region is sized, expired and kept consistent.
+ * This is used alongside {@link Cacheable} (which, together with the <code>SharedCacheMode</code>, determines
+ * <i>whether</i> the entity is cached), so that small, hot reference data can be cached differently from large
+ * transactional entities. Entities specifying the same region name share the region, and its settings.
+ * <p>
+ * Any setting can be overridden by persistence unit properties of the form
+ * <code>javax.persistence.cache.region.{region}.{setting}</code>, where the settings are as named by the
+ * <code>*_PROPERTY</code> constants of this annotation, so that the cache can be tuned without rebuilding the
+ * application. For example
+ * <pre>
+ *    &lt;property name="javax.persistence.cache.region.countries.timeToLive" value="3600"/&gt;
+ * </pre>
+ * The value of the <code>CacheRegion</code> annotation is inherited by subclasses.
+ * <p>
+ * When specified on a collection-valued attribute annotated {@link CacheableCollection}, this specifies the
+ * region the collection is cached in.
+ *
+ * <pre>
+ *    Example:
+ *
+ *    &#064;Entity
+ *    &#064;Cacheable
+ *    &#064;CacheRegion(name="countries", maxEntries=500, concurrencyStrategy=READ_ONLY)
+ *    public class Country { ... }
+ * </pre>
+ *
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see Cacheable
+ * @see CacheableCollection
+ * @see SharedCacheMode
+ */
+@Target({TYPE, METHOD, FIELD})
+@Retention(RUNTIME)
+public @interface CacheRegion
+{
+    /** Prefix of persistence unit properties overriding the settings of a region, followed by the region name. */
+    public static final String PROPERTY_PREFIX = "javax.persistence.cache.region.";
+
+    /** Setting name for overriding {@link #maxEntries()}. */
+    public static final String MAX_ENTRIES_PROPERTY = "maxEntries";
+
+    /** Setting name for overriding {@link #timeToLive()}. */
+    public static final String TIME_TO_LIVE_PROPERTY = "timeToLive";
+
+    /** Setting name for overriding {@link #maxIdleTime()}. */
+    public static final String MAX_IDLE_TIME_PROPERTY = "maxIdleTime";
+
+    /** Setting name for overriding {@link #concurrencyStrategy()}, taking the name of the strategy. */
+    public static final String CONCURRENCY_STRATEGY_PROPERTY = "concurrencyStrategy";
+
+    /**
+     * (Optional) The name of the region. Defaults to the fully-qualified name of the entity class (of the root
+     * of its inheritance hierarchy), followed by ".{attribute}" for a collection-valued attribute.
+     * @return region name
+     */
+    String name() default "";
+
+    /**
+     * (Optional) The maximum number of entries in the region, beyond which the least recently used are evicted.
+     * A value of 0 means no limit.
+     * @return max entries
+     */
+    long maxEntries() default 0;
+
+    /**
+     * (Optional) The time, in seconds, after which an entry expires from when it was put into the region.
+     * A value of 0 means entries don't expire.
+     * @return time to live in seconds
+     */
+    long timeToLive() default 0;
+
+    /**
+     * (Optional) The time, in seconds, after which an entry expires from when it was last accessed.
+     * A value of 0 means entries don't expire due to being idle.
+     * @return max idle time in seconds
+     */
+    long maxIdleTime() default 0;
+
+    /**
+     * (Optional) The concurrency strategy for entries of the region.
+     * @return concurrency strategy
+     */
+    CacheConcurrencyStrategy concurrencyStrategy() default CacheConcurrencyStrategy.DEFAULT;
+}
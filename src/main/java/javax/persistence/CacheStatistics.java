@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Map;
+
+/**
+ * Statistics for the second-level cache, or for the entries of one entity class in it.
+ * Hit, miss, put and eviction counts are cumulative since creation or the last <code>reset</code>, whereas the
+ * entry count and memory size reflect the current contents of the cache.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see Cache#getStatistics()
+ * @see CacheStatisticsCounters
+ */
+public interface CacheStatistics
+{
+    /**
+     * Number of lookups that found an entry in the cache.
+     * @return hit count
+     */
+    public long getHitCount();
+
+    /**
+     * Number of lookups that didn't find an entry in the cache.
+     * @return miss count
+     */
+    public long getMissCount();
+
+    /**
+     * Number of entries put into the cache.
+     * @return put count
+     */
+    public long getPutCount();
+
+    /**
+     * Number of entries removed from the cache, whether explicitly or due to size or expiry limits.
+     * @return eviction count
+     */
+    public long getEvictionCount();
+
+    /**
+     * Number of entries currently in the cache.
+     * @return entry count
+     */
+    public long getEntryCount();
+
+    /**
+     * Approximate memory used by the entries currently in the cache.
+     * @return memory size in bytes, or -1 if not known
+     */
+    public long getMemorySize();
+
+    /**
+     * Ratio of hits to lookups.
+     * @return hit ratio between 0 and 1, or 0 if there have been no lookups
+     */
+    public default double getHitRatio()
+    {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return (lookups > 0) ? (double) hits / lookups : 0.0;
+    }
+
+    /**
+     * Statistics for each entity class that has entries in the cache. The statistics of this object are the
+     * totals over these.
+     * @return statistics keyed by entity class, or an empty map if this is the statistics of one entity class
+     */
+    public Map<Class<?>, CacheStatistics> getEntityStatistics();
+
+    /**
+     * Reset the hit, miss, put and eviction counts (including those of each entity class) to zero.
+     * The entry count and memory size are not affected.
+     */
+    public void reset();
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of {@link CacheStatistics} for use by persistence providers, recording per entity class using
+ * striped counters (<code>LongAdder</code>) so that recording adds negligible contention to cache accesses.
+ * Totals are computed when read by summing over the entity classes.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ */
+public class CacheStatisticsCounters implements CacheStatistics
+{
+    private final ConcurrentHashMap<Class<?>, EntityCounters> entityCounters = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, CacheStatistics> entityStatistics = Collections.unmodifiableMap(entityCounters);
+
+    /**
+     * Record a lookup of an entity of the specified class that found an entry.
+     * @param cls entity class
+     */
+    public void recordHit(Class<?> cls)
+    {
+        getCounters(cls).hits.increment();
+    }
+
+    /**
+     * Record a lookup of an entity of the specified class that didn't find an entry.
+     * @param cls entity class
+     */
+    public void recordMiss(Class<?> cls)
+    {
+        getCounters(cls).misses.increment();
+    }
+
+    /**
+     * Record an entity of the specified class being put into the cache.
+     * @param cls entity class
+     * @param newEntry whether the put added an entry, rather than replacing an existing one
+     * @param memoryDelta approximate change in memory used, in bytes
+     */
+    public void recordPut(Class<?> cls, boolean newEntry, long memoryDelta)
+    {
+        EntityCounters counters = getCounters(cls);
+        counters.puts.increment();
+        if (newEntry)
+        {
+            counters.entries.increment();
+        }
+        counters.memory.add(memoryDelta);
+    }
+
+    /**
+     * Record an entry for an entity of the specified class being removed from the cache.
+     * @param cls entity class
+     * @param memoryDelta approximate memory freed, in bytes
+     */
+    public void recordEviction(Class<?> cls, long memoryDelta)
+    {
+        EntityCounters counters = getCounters(cls);
+        counters.evictions.increment();
+        counters.entries.decrement();
+        counters.memory.add(-memoryDelta);
+    }
+
+    /**
+     * Record all entries being removed from the cache, with the eviction counts incremented by the number of entries.
+     */
+    public void recordEvictAll()
+    {
+        for (EntityCounters counters : entityCounters.values())
+        {
+            long entries = counters.entries.sumThenReset();
+            counters.evictions.add(entries);
+            counters.memory.reset();
+        }
+    }
+
+    private EntityCounters getCounters(Class<?> cls)
+    {
+        EntityCounters counters = entityCounters.get(cls);
+        return (counters != null) ? counters : entityCounters.computeIfAbsent(cls, c -> new EntityCounters());
+    }
+
+    public long getHitCount()
+    {
+        long total = 0;
+        for (EntityCounters counters : entityCounters.values())
+        {
+            total += counters.getHitCount();
+        }
+        return total;
+    }
+
+    public long getMissCount()
+    {
+        long total = 0;
+        for (EntityCounters counters : entityCounters.values())
+        {
+            total += counters.getMissCount();
+        }
+        return total;
+    }
+
+    public long getPutCount()
+    {
+        long total = 0;
+        for (EntityCounters counters : entityCounters.values())
+        {
+            total += counters.getPutCount();
+        }
+        return total;
+    }
+
+    public long getEvictionCount()
+    {
+        long total = 0;
+        for (EntityCounters counters : entityCounters.values())
+        {
+            total += counters.getEvictionCount();
+        }
+        return total;
+    }
+
+    public long getEntryCount()
+    {
+        long total = 0;
+        for (EntityCounters counters : entityCounters.values())
+        {
+            total += counters.getEntryCount();
+        }
+        return total;
+    }
+
+    public long getMemorySize()
+    {
+        long total = 0;
+        for (EntityCounters counters : entityCounters.values())
+        {
+            total += counters.getMemorySize();
+        }
+        return total;
+    }
+
+    public Map<Class<?>, CacheStatistics> getEntityStatistics()
+    {
+        return entityStatistics;
+    }
+
+    public void reset()
+    {
+        for (EntityCounters counters : entityCounters.values())
+        {
+            counters.reset();
+        }
+    }
+
+    public String toString()
+    {
+        return "CacheStatistics[hits=" + getHitCount() + " misses=" + getMissCount() + " puts=" + getPutCount() +
+            " evictions=" + getEvictionCount() + " entries=" + getEntryCount() + " memory=" + getMemorySize() + "]";
+    }
+
+    /**
+     * Counters for the entries of one entity class.
+     */
+    private static class EntityCounters implements CacheStatistics
+    {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder puts = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        final LongAdder entries = new LongAdder();
+        final LongAdder memory = new LongAdder();
+
+        public long getHitCount()
+        {
+            return hits.sum();
+        }
+
+        public long getMissCount()
+        {
+            return misses.sum();
+        }
+
+        public long getPutCount()
+        {
+            return puts.sum();
+        }
+
+        public long getEvictionCount()
+        {
+            return evictions.sum();
+        }
+
+        public long getEntryCount()
+        {
+            return entries.sum();
+        }
+
+        public long getMemorySize()
+        {
+            return memory.sum();
+        }
+
+        public Map<Class<?>, CacheStatistics> getEntityStatistics()
+        {
+            return Collections.emptyMap();
+        }
+
+        public void reset()
+        {
+            hits.reset();
+            misses.reset();
+            puts.reset();
+            evictions.reset();
+        }
+
+        public String toString()
+        {
+            return "CacheStatistics[hits=" + getHitCount() + " misses=" + getMissCount() + " puts=" + getPutCount() +
+                " evictions=" + getEvictionCount() + " entries=" + getEntryCount() + " memory=" + getMemorySize() + "]";
+        }
+    }
+}
@@ -22,6 +22,8 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
  * subclasses; it can be overridden by specifying <code>Cacheable</code> on a subclass.
  * <p>
  * <code>Cacheable(false)</code> means that the entity and its state must not be cached by the provider.
+ * The cache region used, and its size, expiry and concurrency strategy, can be specified using {@link CacheRegion}.
+ * @see CacheRegion
  * @since Java Persistence 2.0
  */
 @Target({TYPE})
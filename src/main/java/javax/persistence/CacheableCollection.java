@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Specifies whether a collection-valued relationship or element collection should be cached in the second-level
+ * cache. The collection is cached as the primary keys of its elements (or the element values, for an element
+ * collection) keyed by the primary key of the owning entity, so that loading the collection of a cached entity
+ * doesn't need to access the datastore. Entity elements are resolved against the second-level cache, so the
+ * element entity should also be cacheable. The region the collection is cached in can be specified using
+ * {@link CacheRegion} on the attribute.
+ * <p>
+ * A cached collection is evicted whenever it is modified through the persistence unit. Changes made to the
+ * datastore outside of the persistence unit must be notified using <code>Cache.evictCollection</code>.
+ * <p>
+ * Caching of an attribute can also be enabled or disabled, overriding the annotation, by a persistence unit
+ * property of the form <code>javax.persistence.cache.collection.{entity class}.{attribute}</code> with a boolean
+ * value, where the entity class is fully-qualified.
+ *
+ * <pre>
+ *    Example:
+ *
+ *    &#064;OneToMany(mappedBy="country")
+ *    &#064;CacheableCollection
+ *    public Set&#060;Region&#062; getRegions() { return regions; }
+ * </pre>
+ *
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see Cache#evictCollection(javax.persistence.metamodel.PluralAttribute, Object)
+ * @see Cache#evictCollection(Class, javax.persistence.metamodel.PluralAttribute, Object)
+ * @see Cacheable
+ * @see CacheRegion
+ */
+@Target({METHOD, FIELD})
+@Retention(RUNTIME)
+public @interface CacheableCollection
+{
+    /** Prefix of persistence unit properties enabling or disabling caching of an attribute. */
+    public static final String PROPERTY_PREFIX = "javax.persistence.cache.collection.";
+
+    /**
+     * (Optional) Whether or not the collection should be cached.
+     * @return Whether to cache it
+     */
+    boolean value() default true;
+}
@@ -56,4 +56,15 @@ public @interface ElementCollection
      * @return fetch type
      */
     FetchType fetch() default LAZY;
+
+    /**
+     * (Optional) How the collection elements should be fetched from the database: using an outer join with the owner
+     * (JOIN), a separate select per owner (SELECT), a single select for all owners returned by the owning query
+     * (SUBSELECT), or a select per batch of owners (BATCH). The default leaves the choice to the persistence provider.
+     * This is independent of <code>fetch</code>, which defines when the collection elements are fetched.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return The fetch mode
+     * @see FetchMode
+     */
+    FetchMode fetchMode() default FetchMode.DEFAULT;
 }
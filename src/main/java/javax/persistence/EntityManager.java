@@ -14,6 +14,10 @@ import javax.persistence.criteria.CriteriaDelete;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.metamodel.Metamodel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +41,37 @@ import java.util.Map;
  */
 public interface EntityManager extends AutoCloseable
 {
+    /**
+     * Property for the <code>findAll</code> methods specifying whether keys with no matching entity should be
+     * omitted from the returned list (true) rather than being represented by a null element (false, the default).
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String FIND_OMIT_MISSING = "javax.persistence.find.omitMissing";
+
+    /**
+     * Property for the <code>findAll</code> methods specifying that entities already managed in the persistence
+     * context should not be returned, but treated as if they had no entity, so that only entities fetched from
+     * the datastore are returned (for example when prefetching). This is a hint: the default implementations,
+     * which use <code>find</code> for each key, cannot tell which entities were already managed and so ignore it.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String FIND_SKIP_MANAGED = "javax.persistence.find.skipManaged";
+
+    /**
+     * Property for the entity manager factory or entity manager specifying the number of statements the
+     * provider should group into a JDBC batch when flushing. A value of 1 or less disables batching.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String BATCH_SIZE = "javax.persistence.jdbc.batch_size";
+
+    /**
+     * Property for the entity manager specifying that the <code>persistAll</code> and <code>mergeAll</code>
+     * methods should flush and clear the persistence context after every N entities, so that the persistence
+     * context does not grow without bound in write-only sessions. <code>removeAll</code> only flushes, since the
+     * remaining entities must stay managed. A value of 0 (the default) disables this.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String FLUSH_CLEAR_INTERVAL = "javax.persistence.bulk.flushClearInterval";
 
     /**
      * Make an instance managed and persistent.
@@ -71,6 +106,125 @@ public interface EntityManager extends AutoCloseable
      */
     public void remove(Object entity);
 
+    /**
+     * Make several instances managed and persistent.
+     * If the {@link #FLUSH_CLEAR_INTERVAL} property is set, the persistence context is flushed and cleared after
+     * every that number of entities, so all entities persisted before the last clear are detached on return.
+     * <p>
+     * By default this method calls <code>persist</code> for each entity, however the persistence provider may choose
+     * to override this method to process the entities as a batch.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entities entity instances
+     * @throws EntityExistsException if an entity already exists
+     * @throws IllegalArgumentException if an instance is not an entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type
+     * <code>PersistenceContextType.TRANSACTION</code> and there is no transaction, or if a flush is required and
+     * there is no transaction
+     * @throws PersistenceException if a flush fails
+     */
+    public default void persistAll(Collection<?> entities)
+    {
+        int interval = getFlushClearInterval();
+        int count = 0;
+        for (Object entity : entities)
+        {
+            persist(entity);
+            if (interval > 0 && ++count % interval == 0)
+            {
+                flush();
+                clear();
+            }
+        }
+    }
+
+    /**
+     * Merge the state of several entities into the current persistence context.
+     * If the {@link #FLUSH_CLEAR_INTERVAL} property is set, the persistence context is flushed and cleared after
+     * every that number of entities, so the returned instances merged before the last clear are detached.
+     * <p>
+     * By default this method calls <code>merge</code> for each entity, however the persistence provider may choose
+     * to override this method to process the entities as a batch.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entities entity instances
+     * @return the instances that the state was merged to, in the order of the input
+     * @param <T> Type
+     * @throws IllegalArgumentException if an instance is not an entity or is a removed entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type
+     * <code>PersistenceContextType.TRANSACTION</code> and there is no transaction, or if a flush is required and
+     * there is no transaction
+     * @throws PersistenceException if a flush fails
+     */
+    public default <T> List<T> mergeAll(Collection<? extends T> entities)
+    {
+        int interval = getFlushClearInterval();
+        int count = 0;
+        List<T> merged = new ArrayList<>(entities.size());
+        for (T entity : entities)
+        {
+            merged.add(merge(entity));
+            if (interval > 0 && ++count % interval == 0)
+            {
+                flush();
+                clear();
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Remove several entity instances.
+     * If the {@link #FLUSH_CLEAR_INTERVAL} property is set, the persistence context is flushed (but not cleared)
+     * after every that number of entities.
+     * <p>
+     * By default this method calls <code>remove</code> for each entity, however the persistence provider may choose
+     * to override this method to process the entities as a batch.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entities entity instances
+     * @throws IllegalArgumentException if an instance is not an entity or is a detached entity
+     * @throws TransactionRequiredException if invoked on a container-managed entity manager of type
+     * <code>PersistenceContextType.TRANSACTION</code> and there is no transaction, or if a flush is required and
+     * there is no transaction
+     * @throws PersistenceException if a flush fails
+     */
+    public default void removeAll(Collection<?> entities)
+    {
+        int interval = getFlushClearInterval();
+        int count = 0;
+        for (Object entity : entities)
+        {
+            remove(entity);
+            if (interval > 0 && ++count % interval == 0)
+            {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Accessor for the value of the {@link #FLUSH_CLEAR_INTERVAL} property in effect for this entity manager.
+     * @return The interval, or 0 if not set
+     */
+    private int getFlushClearInterval()
+    {
+        Object value = getProperties().get(FLUSH_CLEAR_INTERVAL);
+        if (value instanceof Number)
+        {
+            return ((Number) value).intValue();
+        }
+        else if (value instanceof String)
+        {
+            try
+            {
+                return Integer.parseInt(((String) value).trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                // Not a valid interval, so ignore it
+            }
+        }
+        return 0;
+    }
+
     /**
      * Find by primary key. Search for an entity of the specified class and primary key. If the entity
      * instance is contained in the persistence context, it is returned from there.
@@ -87,6 +241,7 @@ public interface EntityManager extends AutoCloseable
      * Find by primary key, using the specified properties. Search for an entity of the specified class and
      * primary key. If the entity instance is contained in the persistence context, it is returned from there.
      * If a vendor-specific property or hint is not recognized, it is silently ignored.
+     * The {@link Query#HINT_READ_ONLY} hint may be used to load the entity without a dirty-checking snapshot.
      * @param entityClass entity class
      * @param primaryKey primary key
      * @param properties standard and vendor-specific properties and hints
@@ -173,6 +328,169 @@ public interface EntityManager extends AutoCloseable
      */
     public <T> T find(Class<T> entityClass, Object primaryKey, LockModeType lockMode, Map<String, Object> properties);
 
+    /**
+     * Find several entities of the specified class by primary key. The returned list has the entity for each key,
+     * in the order of the keys, with a null element for any key that has no entity (unless the
+     * {@link #FIND_OMIT_MISSING} property is set). Entities contained in the persistence context are returned from
+     * there.
+     * <p>
+     * By default this method calls <code>find</code> for each key, however the persistence provider may choose to
+     * override this method to fetch the entities in fewer round trips, for example using an IN list.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entityClass entity class
+     * @param primaryKeys primary keys
+     * @return the found entity instances
+     * @param <T> Type
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or any key is not a
+     * valid type for that entity's primary key or is null
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys)
+    {
+        return findAll(entityClass, primaryKeys, null, null);
+    }
+
+    /**
+     * Find several entities of the specified class by primary key, using the specified properties.
+     * See {@link #findAll(Class, Collection)}.
+     * If a vendor-specific property or hint is not recognized, it is silently ignored.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entityClass entity class
+     * @param primaryKeys primary keys
+     * @param properties standard and vendor-specific properties and hints
+     * @return the found entity instances
+     * @param <T> Type
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or any key is not a
+     * valid type for that entity's primary key or is null
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys, Map<String, Object> properties)
+    {
+        return findAll(entityClass, primaryKeys, null, properties);
+    }
+
+    /**
+     * Find several entities of the specified class by primary key, and lock them with respect to the specified
+     * lock type. See {@link #findAll(Class, Collection)} and {@link #find(Class, Object, LockModeType)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entityClass entity class
+     * @param primaryKeys primary keys
+     * @param lockMode lock mode
+     * @return the found entity instances
+     * @param <T> Type
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or any key is not a
+     * valid type for that entity's primary key or is null
+     * @throws TransactionRequiredException if there is no transaction and a lock mode other than NONE is
+     * specified
+     * @throws OptimisticLockException if the optimistic version check fails
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if an unsupported lock call is made
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys, LockModeType lockMode)
+    {
+        return findAll(entityClass, primaryKeys, lockMode, null);
+    }
+
+    /**
+     * Find several entities of the specified class by primary key, and lock them with respect to the specified
+     * lock type, using the specified properties. See {@link #findAll(Class, Collection)} and
+     * {@link #find(Class, Object, LockModeType, Map)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entityClass entity class
+     * @param primaryKeys primary keys
+     * @param lockMode lock mode (null implies none specified)
+     * @param properties standard and vendor-specific properties and hints (may be null)
+     * @return the found entity instances
+     * @param <T> Type
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or any key is not a
+     * valid type for that entity's primary key or is null
+     * @throws TransactionRequiredException if there is no transaction and a lock mode other than
+     * <code>NONE</code> is specified
+     * @throws OptimisticLockException if the optimistic version check fails
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if an unsupported lock call is made
+     */
+    public default <T> List<T> findAll(Class<T> entityClass, Collection<?> primaryKeys, LockModeType lockMode, Map<String, Object> properties)
+    {
+        boolean omitMissing = properties != null && Boolean.parseBoolean(String.valueOf(properties.get(FIND_OMIT_MISSING)));
+        List<T> results = new ArrayList<>(primaryKeys.size());
+        for (Object primaryKey : primaryKeys)
+        {
+            T result;
+            if (lockMode == null)
+            {
+                result = (properties == null) ? find(entityClass, primaryKey) : find(entityClass, primaryKey, properties);
+            }
+            else
+            {
+                result = (properties == null) ? find(entityClass, primaryKey, lockMode) : find(entityClass, primaryKey, lockMode, properties);
+            }
+            if (result != null || !omitMissing)
+            {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Find several entities of the specified class by primary key, returning them keyed by primary key.
+     * The map iterates in the order of the keys, and has no entry for any key that has no entity.
+     * See {@link #findAll(Class, Collection)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entityClass entity class
+     * @param primaryKeys primary keys
+     * @return the found entity instances, keyed by primary key
+     * @param <T> Type
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or any key is not a
+     * valid type for that entity's primary key or is null
+     */
+    public default <T> Map<Object, T> findAllAsMap(Class<T> entityClass, Collection<?> primaryKeys)
+    {
+        return findAllAsMap(entityClass, primaryKeys, null, null);
+    }
+
+    /**
+     * Find several entities of the specified class by primary key, and lock them with respect to the specified
+     * lock type, using the specified properties, returning them keyed by primary key.
+     * The map iterates in the order of the keys, and has no entry for any key that has no entity.
+     * See {@link #findAll(Class, Collection, LockModeType, Map)}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entityClass entity class
+     * @param primaryKeys primary keys
+     * @param lockMode lock mode (null implies none specified)
+     * @param properties standard and vendor-specific properties and hints (may be null)
+     * @return the found entity instances, keyed by primary key
+     * @param <T> Type
+     * @throws IllegalArgumentException if the first argument does not denote an entity type or any key is not a
+     * valid type for that entity's primary key or is null
+     * @throws TransactionRequiredException if there is no transaction and a lock mode other than
+     * <code>NONE</code> is specified
+     * @throws OptimisticLockException if the optimistic version check fails
+     * @throws PessimisticLockException if pessimistic locking fails and the transaction is rolled back
+     * @throws LockTimeoutException if pessimistic locking fails and only the statement is rolled back
+     * @throws PersistenceException if an unsupported lock call is made
+     */
+    public default <T> Map<Object, T> findAllAsMap(Class<T> entityClass, Collection<?> primaryKeys, LockModeType lockMode, Map<String, Object> properties)
+    {
+        // Keep an element per key so that the results line up with the keys
+        Map<String, Object> findProps = (properties != null) ? new HashMap<>(properties) : new HashMap<>();
+        findProps.put(FIND_OMIT_MISSING, Boolean.FALSE);
+        List<T> results = findAll(entityClass, primaryKeys, lockMode, findProps);
+
+        Map<Object, T> resultsByKey = new LinkedHashMap<>();
+        int i = 0;
+        for (Object primaryKey : primaryKeys)
+        {
+            T result = results.get(i++);
+            if (result != null)
+            {
+                resultsByKey.put(primaryKey, result);
+            }
+        }
+        return resultsByKey;
+    }
+
     /**
      * Get an instance, whose state may be lazily fetched. If the requested instance does not exist in the
      * database, the <code>EntityNotFoundException</code> is thrown when the instance state is first accessed.
@@ -553,6 +871,35 @@ public interface EntityManager extends AutoCloseable
      */
     public void joinTransaction();
 
+    /**
+     * Return the number of entities currently managed in the persistence context, for example for monitoring
+     * the growth of long-running contexts.
+     * See {@link PersistenceContextType#MAX_MANAGED_ENTITIES}.
+     * <p>
+     * By default this method returns -1, indicating that the provider cannot determine the count.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return number of managed entities, or -1 if not known
+     * @throws IllegalStateException if the entity manager has been closed
+     */
+    public default long getManagedEntityCount()
+    {
+        return -1;
+    }
+
+    /**
+     * Determine whether the entity manager has no persistence context, so that all entities it returns are
+     * detached and all operations go directly to the datastore.
+     * See {@link EntityManagerFactory#createStatelessEntityManager()}.
+     * <p>
+     * By default this method returns false.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return whether the entity manager is stateless
+     */
+    public default boolean isStateless()
+    {
+        return false;
+    }
+
     /**
      * Determine whether the entity manager is joined to the current transaction. Returns false if the entity
      * manager is not joined to the current transaction or if no transaction is active
@@ -11,6 +11,7 @@ package javax.persistence;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.metamodel.Metamodel;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,6 +28,11 @@ import java.util.Map;
  */
 public interface EntityManagerFactory extends AutoCloseable
 {
+    /**
+     * Property for creating an entity manager with no persistence context. See {@link #createStatelessEntityManager()}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String STATELESS = "javax.persistence.stateless";
     /**
      * Create a new application-managed <code>EntityManager</code>. This method returns a new
      * <code>EntityManager</code> instance each time it is invoked. The <code>isOpen</code> method will return
@@ -71,6 +77,56 @@ public interface EntityManagerFactory extends AutoCloseable
      */
     public EntityManager createEntityManager(SynchronizationType synchronizationType, Map map);
 
+    /**
+     * Create a new application-managed <code>EntityManager</code> that has no persistence context. Such an entity
+     * manager keeps no first-level cache, identity map or dirty-checking snapshots, so has a fixed memory
+     * footprint regardless of how many entities pass through it:
+     * <ul>
+     * <li><code>find</code> and queries always read from the datastore, and return detached instances</li>
+     * <li><code>persist</code>, <code>merge</code> and <code>remove</code> write to the datastore immediately
+     * (or as part of the current JDBC batch), and leave the instance detached</li>
+     * <li>there is no automatic dirty checking, cascading of operations or lazy loading of unloaded state</li>
+     * </ul>
+     * This is the recommended way of running bulk read/transform/write (ETL) workloads, where the persistence context
+     * provides no benefit.
+     * <p>
+     * By default this method calls <code>createEntityManager</code> with the {@link #STATELESS} property set.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return entity manager instance, for which <code>isStateless</code> returns true
+     * @throws IllegalStateException if the entity manager factory has been closed
+     * @throws PersistenceException if the provider does not support stateless entity managers
+     */
+    public default EntityManager createStatelessEntityManager()
+    {
+        return createStatelessEntityManager(null);
+    }
+
+    /**
+     * Create a new application-managed <code>EntityManager</code> that has no persistence context, with the
+     * specified Map of properties. See {@link #createStatelessEntityManager()}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param map properties for entity manager; may be null
+     * @return entity manager instance, for which <code>isStateless</code> returns true
+     * @throws IllegalStateException if the entity manager factory has been closed
+     * @throws PersistenceException if the provider does not support stateless entity managers
+     */
+    public default EntityManager createStatelessEntityManager(Map map)
+    {
+        Map<Object, Object> props = new HashMap<>();
+        if (map != null)
+        {
+            props.putAll((Map<?, ?>) map);
+        }
+        props.put(STATELESS, Boolean.TRUE);
+        EntityManager em = createEntityManager(props);
+        if (!em.isStateless())
+        {
+            em.close();
+            throw new PersistenceException("Persistence provider does not support stateless entity managers");
+        }
+        return em;
+    }
+
     /**
      * Return an instance of <code>CriteriaBuilder</code> for the creation of <code>CriteriaQuery</code>
      * objects.
@@ -121,6 +177,18 @@ public interface EntityManagerFactory extends AutoCloseable
      */
     public Cache getCache();
 
+    /**
+     * Access the query result cache that is associated with the entity manager factory.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return instance of the <code>QueryCache</code> interface
+     * @throws IllegalStateException if the entity manager factory has been closed
+     * @throws PersistenceException if the provider does not support a query result cache
+     */
+    public default QueryCache getQueryCache()
+    {
+        throw new PersistenceException("Persistence provider does not support a query result cache");
+    }
+
     /**
      * Return interface providing access to utility methods for the persistence unit.
      * @return <code>PersistenceUnitUtil</code> interface
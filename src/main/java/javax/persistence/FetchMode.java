@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+/**
+ * Defines how the data of a collection-valued attribute is fetched from the database. Whereas
+ * {@link FetchType} defines <i>when</i> the data is fetched, the fetch mode defines <i>how</i>.
+ *
+ * <pre>
+ *   Example:
+ *   &#064;OneToMany(mappedBy="customer", fetchMode=SUBSELECT)
+ *   public Set&#060;Order&#062; getOrders() { return orders; }
+ * </pre>
+ *
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see FetchType
+ * @see BatchFetch
+ * @see ElementCollection
+ * @see ManyToMany
+ * @see OneToMany
+ */
+public enum FetchMode {
+
+    /** The persistence provider chooses how to fetch the data. */
+    DEFAULT,
+
+    /** The data is fetched in the same select as the owning entity, using an outer join. */
+    JOIN,
+
+    /** The data is fetched using a separate select for each owning entity. */
+    SELECT,
+
+    /**
+     * When the data is fetched for one owning entity, it is also fetched for all other owning entities returned by
+     * the query that loaded it, using a single select with a subselect re-executing that query.
+     */
+    SUBSELECT,
+
+    /**
+     * When the data is fetched for one owning entity, it is also fetched for other owning entities in the
+     * persistence context, in batches of the size specified by {@link BatchFetch} (or the provider default).
+     */
+    BATCH
+}
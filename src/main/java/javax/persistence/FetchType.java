@@ -25,6 +25,8 @@ package javax.persistence;
  *   protected String getName() { return name; }
  * </pre>
  *
+ * @see BatchFetch
+ * @see FetchMode
  * @see Basic
  * @see ElementCollection
  * @see ManyToMany
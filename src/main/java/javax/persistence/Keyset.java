@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The values of the ordering expressions of a query result, used as the continuation token for keyset (seek)
+ * pagination. The next page is fetched by restricting the query to results ordered after these values, rather
+ * than by skipping results with <code>setFirstResult</code>, so the cost of fetching a page does not depend on how
+ * deep it is.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see KeysetPage
+ * @see javax.persistence.criteria.CriteriaQuery#keysetAfter(javax.persistence.criteria.CriteriaBuilder, javax.persistence.criteria.Predicate, Keyset)
+ */
+public final class Keyset implements Serializable
+{
+    private static final long serialVersionUID = 2370924727154395102L;
+
+    private final Object[] values;
+
+    /**
+     * Constructor.
+     * @param values The values of the ordering expressions, in the order of the ordering
+     */
+    public Keyset(Object... values)
+    {
+        this.values = values.clone();
+    }
+
+    /**
+     * Accessor for the values of the ordering expressions, in the order of the ordering.
+     * @return The values
+     */
+    public Object[] getValues()
+    {
+        return values.clone();
+    }
+
+    public boolean equals(Object obj)
+    {
+        if (obj == this)
+        {
+            return true;
+        }
+        return (obj instanceof Keyset) && Arrays.equals(values, ((Keyset) obj).values);
+    }
+
+    public int hashCode()
+    {
+        return Arrays.hashCode(values);
+    }
+
+    public String toString()
+    {
+        return "Keyset" + Arrays.toString(values);
+    }
+}
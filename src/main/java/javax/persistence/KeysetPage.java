@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of query results obtained using keyset (seek) pagination, together with the continuation token for
+ * fetching the next page.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @param <X> query result type
+ * @see TypedQuery#getResultPage(int, java.util.function.Function)
+ */
+public class KeysetPage<X>
+{
+    private final List<X> results;
+
+    private final Keyset nextKeyset;
+
+    /**
+     * Constructor.
+     * @param results The results in this page
+     * @param nextKeyset The keyset of the last result, when there is a next page, otherwise null
+     */
+    public KeysetPage(List<X> results, Keyset nextKeyset)
+    {
+        this.results = Collections.unmodifiableList(results);
+        this.nextKeyset = nextKeyset;
+    }
+
+    /**
+     * Accessor for the results in this page.
+     * @return The results
+     */
+    public List<X> getResults()
+    {
+        return results;
+    }
+
+    /**
+     * Whether there is a page after this one.
+     * @return Whether there are more results
+     */
+    public boolean hasNext()
+    {
+        return nextKeyset != null;
+    }
+
+    /**
+     * Accessor for the continuation token to fetch the next page, being the keyset of the last result in this page.
+     * @return The keyset to seek after, or null if this is the last page
+     */
+    public Keyset getNextKeyset()
+    {
+        return nextKeyset;
+    }
+}
@@ -47,4 +47,20 @@ public @interface NamedAttributeNode {
 	 * @return key subgraph
 	 */
 	String keySubgraph() default "";
+
+	/**
+	 * (Optional) The batch size to use when this attribute is fetched lazily, for operations using this graph.
+	 * See {@link BatchFetch}. The default of 0 means that any <code>BatchFetch</code> mapping applies.
+	 * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+	 * @return batch size
+	 */
+	int batchSize() default 0;
+
+	/**
+	 * (Optional) How the attribute is to be fetched from the database, for operations using this graph.
+	 * The default means that the <code>fetchMode</code> of the attribute mapping applies.
+	 * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+	 * @return fetch mode
+	 */
+	FetchMode fetchMode() default FetchMode.DEFAULT;
 }
@@ -73,4 +73,20 @@ public @interface NamedQuery
      * @return The hints
      */
     QueryHint[] hints() default {};
+
+    /**
+     * (Optional) Whether the results of the query are cached in the query result cache.
+     * Equivalent to the <code>javax.persistence.query.cacheable</code> hint.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return Whether to cache the results
+     */
+    boolean cacheable() default false;
+
+    /**
+     * (Optional) The query result cache region to cache the results in, when <code>cacheable</code> is set.
+     * Equivalent to the <code>javax.persistence.query.cacheRegion</code> hint.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return The region name
+     */
+    String cacheRegion() default "";
 }
@@ -107,6 +107,17 @@ public @interface OneToMany
      */
     FetchType fetch() default LAZY;
 
+    /**
+     * (Optional) How the associated entities should be fetched from the database: using an outer join with the owner
+     * (JOIN), a separate select per owner (SELECT), a single select for all owners returned by the owning query
+     * (SUBSELECT), or a select per batch of owners (BATCH). The default leaves the choice to the persistence provider.
+     * This is independent of <code>fetch</code>, which defines when the associated entities are fetched.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return The fetch mode
+     * @see FetchMode
+     */
+    FetchMode fetchMode() default FetchMode.DEFAULT;
+
     /**
      * The field that owns the relationship. Required unless the relationship is unidirectional.
      * @return mappedby
@@ -11,12 +11,25 @@ package javax.persistence;
 
 import javax.persistence.spi.LoadState;
 import javax.persistence.spi.PersistenceProvider;
-import javax.persistence.spi.PersistenceProviderResolver;
 import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.ProviderUtil;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Bootstrap class that provides access to an EntityManagerFactory.
@@ -44,12 +57,26 @@ public class Persistence
     {
         EntityManagerFactory emf = null;
         List<PersistenceProvider> providers = getProviders();
-        for (PersistenceProvider provider : providers)
+
+        // Try the provider declared for this unit first, and only fall back to asking each provider
+        PersistenceProvider declaredProvider = PersistenceUnitProviderIndex.getProvider(providers, persistenceUnitName, properties);
+        if (declaredProvider != null)
+        {
+            emf = declaredProvider.createEntityManagerFactory(persistenceUnitName, properties);
+        }
+        if (emf == null)
         {
-            emf = provider.createEntityManagerFactory(persistenceUnitName, properties);
-            if (emf != null)
+            for (PersistenceProvider provider : providers)
             {
-                break;
+                if (provider == declaredProvider)
+                {
+                    continue;
+                }
+                emf = provider.createEntityManagerFactory(persistenceUnitName, properties);
+                if (emf != null)
+                {
+                    break;
+                }
             }
         }
         if (emf == null)
@@ -59,6 +86,269 @@ public class Persistence
         return emf;
     }
 
+    /**
+     * Create and return EntityManagerFactory objects for several persistence units, bootstrapping them in parallel.
+     * The units are bootstrapped on virtual threads when the JRE supports them, otherwise on a pool of platform
+     * threads sized to the number of processors. If any unit fails, the remaining units are not started and any
+     * factories already created are closed.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param unitProperties Map of the properties to use when creating each factory, keyed by persistence unit name.
+     * The properties may be null
+     * @return The factories, keyed by persistence unit name
+     * @throws PersistenceException if any persistence unit could not be bootstrapped
+     */
+    public static Map<String, EntityManagerFactory> createEntityManagerFactories(Map<String, Map> unitProperties)
+    {
+        return createEntityManagerFactories(unitProperties, null, true).getEntityManagerFactories();
+    }
+
+    /**
+     * Create EntityManagerFactory objects for several persistence units, bootstrapping them in parallel on the
+     * supplied executor, and reporting the time taken by each. Each unit is bootstrapped with the context class loader
+     * of the calling thread, whichever thread of the executor it runs on.
+     * <p>
+     * When <code>failFast</code> is set, the first failure is thrown as soon as it occurs: units not yet started
+     * are skipped, units still bootstrapping are cancelled (and any factory they go on to create is closed), and the
+     * factories already created are closed. Otherwise all units are attempted and the failures are returned in the
+     * result.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param unitProperties Map of the properties to use when creating each factory, keyed by persistence unit name.
+     * The properties may be null
+     * @param executor The executor to bootstrap on. If null, virtual threads are used when the JRE supports them,
+     * otherwise a pool of platform threads sized to the number of processors
+     * @param failFast Whether to abort on the first failure
+     * @return The outcome of the bootstrap
+     * @throws PersistenceException if <code>failFast</code> is set and any persistence unit could not be bootstrapped,
+     * or if the calling thread is interrupted while waiting
+     */
+    public static PersistenceBootstrapResult createEntityManagerFactories(Map<String, Map> unitProperties, Executor executor, boolean failFast)
+    {
+        ExecutorService bootstrapExecutor = null;
+        if (executor == null)
+        {
+            bootstrapExecutor = newBootstrapExecutor(unitProperties.size());
+            executor = bootstrapExecutor;
+        }
+
+        final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        final BootstrapState state = new BootstrapState();
+        Map<String, Long> times = new HashMap<>();
+        Map<String, PersistenceException> errors = new HashMap<>();
+        try
+        {
+            CompletionService<UnitBootstrap> completionService = new ExecutorCompletionService<>(executor);
+            List<Future<UnitBootstrap>> futures = new ArrayList<>(unitProperties.size());
+            for (Map.Entry<String, Map> entry : unitProperties.entrySet())
+            {
+                final String unitName = entry.getKey();
+                final Map properties = entry.getValue();
+                futures.add(completionService.submit(() -> bootstrapUnit(unitName, properties, contextLoader, state)));
+            }
+
+            for (int i = 0; i < unitProperties.size(); i++)
+            {
+                UnitBootstrap bootstrap;
+                try
+                {
+                    bootstrap = completionService.take().get();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    abort(state, futures);
+                    throw new PersistenceException("Interrupted while bootstrapping persistence units", e);
+                }
+                catch (ExecutionException e)
+                {
+                    // Only an Error can get here, since the task catches RuntimeException
+                    abort(state, futures);
+                    throw new PersistenceException("Error bootstrapping persistence units", e.getCause());
+                }
+
+                if (bootstrap.error != null)
+                {
+                    PersistenceException pe = (bootstrap.error instanceof PersistenceException) ? (PersistenceException) bootstrap.error :
+                        new PersistenceException("Error bootstrapping persistence-unit " + bootstrap.unitName, bootstrap.error);
+                    if (failFast)
+                    {
+                        abort(state, futures);
+                        throw pe;
+                    }
+                    errors.put(bootstrap.unitName, pe);
+                }
+                times.put(bootstrap.unitName, bootstrap.time);
+            }
+        }
+        finally
+        {
+            if (bootstrapExecutor != null)
+            {
+                bootstrapExecutor.shutdown();
+            }
+        }
+
+        // Report in the order the units were supplied
+        Map<String, EntityManagerFactory> emfs = state.emfs;
+        Map<String, EntityManagerFactory> orderedEmfs = new LinkedHashMap<>();
+        Map<String, Long> orderedTimes = new LinkedHashMap<>();
+        Map<String, PersistenceException> orderedErrors = new LinkedHashMap<>();
+        for (String unitName : unitProperties.keySet())
+        {
+            if (emfs.containsKey(unitName))
+            {
+                orderedEmfs.put(unitName, emfs.get(unitName));
+            }
+            if (times.containsKey(unitName))
+            {
+                orderedTimes.put(unitName, times.get(unitName));
+            }
+            if (errors.containsKey(unitName))
+            {
+                orderedErrors.put(unitName, errors.get(unitName));
+            }
+        }
+        return new PersistenceBootstrapResult(orderedEmfs, orderedTimes, orderedErrors);
+    }
+
+    /**
+     * Bootstrap a single persistence unit, on a thread of the bootstrap executor.
+     * @param unitName Name of the persistence unit
+     * @param properties Properties for the factory (may be null)
+     * @param contextLoader Context class loader of the thread that requested the bootstrap
+     * @param state State of the overall bootstrap
+     * @return The outcome
+     */
+    private static UnitBootstrap bootstrapUnit(String unitName, Map properties, ClassLoader contextLoader, BootstrapState state)
+    {
+        if (state.aborted)
+        {
+            return new UnitBootstrap(unitName, null, 0);
+        }
+
+        // Resolve providers and persistence.xml against the loader of the caller, not of the executor thread
+        Thread thread = Thread.currentThread();
+        ClassLoader origLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(contextLoader);
+        long startTime = System.nanoTime();
+        try
+        {
+            EntityManagerFactory emf = createEntityManagerFactory(unitName, properties);
+            if (!state.publish(unitName, emf))
+            {
+                // Bootstrap aborted while this unit was in progress, so nobody will receive the factory
+                closeQuietly(emf);
+            }
+            return new UnitBootstrap(unitName, null, System.nanoTime() - startTime);
+        }
+        catch (RuntimeException e)
+        {
+            return new UnitBootstrap(unitName, e, System.nanoTime() - startTime);
+        }
+        finally
+        {
+            thread.setContextClassLoader(origLoader);
+        }
+    }
+
+    /**
+     * Abort a bootstrap, closing the factories created so far and cancelling the units still in progress.
+     * @param state State of the bootstrap
+     * @param futures The futures of all units
+     */
+    private static void abort(BootstrapState state, List<Future<UnitBootstrap>> futures)
+    {
+        state.abort();
+        for (Future<UnitBootstrap> future : futures)
+        {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Create an executor for bootstrapping persistence units, using virtual threads where the JRE provides them.
+     * @param numUnits Number of persistence units to bootstrap
+     * @return The executor
+     */
+    private static ExecutorService newBootstrapExecutor(int numUnits)
+    {
+        ExecutorService executor = AsyncExecutionSupport.newVirtualThreadExecutor();
+        if (executor != null)
+        {
+            return executor;
+        }
+        return Executors.newFixedThreadPool(Math.max(1, Math.min(numUnits, Runtime.getRuntime().availableProcessors())));
+    }
+
+    private static void closeQuietly(EntityManagerFactory emf)
+    {
+        try
+        {
+            emf.close();
+        }
+        catch (RuntimeException e)
+        {
+            // Ignore, since either reporting the original failure or nobody is waiting for the factory
+        }
+    }
+
+    /**
+     * State of a bootstrap of several persistence units, shared by the units. Factories are published to it as they
+     * are created, so that whichever of the aborting thread and the bootstrapping thread comes second closes the
+     * factory, and none is leaked.
+     */
+    private static class BootstrapState
+    {
+        final Map<String, EntityManagerFactory> emfs = new HashMap<>();
+
+        volatile boolean aborted;
+
+        /**
+         * Publish a created factory.
+         * @param unitName Name of the persistence unit
+         * @param emf The factory
+         * @return Whether published, otherwise the bootstrap was aborted and the caller must close the factory
+         */
+        synchronized boolean publish(String unitName, EntityManagerFactory emf)
+        {
+            if (aborted)
+            {
+                return false;
+            }
+            emfs.put(unitName, emf);
+            return true;
+        }
+
+        synchronized void abort()
+        {
+            aborted = true;
+            for (EntityManagerFactory emf : emfs.values())
+            {
+                closeQuietly(emf);
+            }
+            emfs.clear();
+        }
+    }
+
+    /**
+     * Outcome of bootstrapping a single persistence unit. The factory, if created, is published to the
+     * {@link BootstrapState}.
+     */
+    private static class UnitBootstrap
+    {
+        final String unitName;
+
+        final RuntimeException error;
+
+        final long time;
+
+        UnitBootstrap(String unitName, RuntimeException error, long time)
+        {
+            this.unitName = unitName;
+            this.error = error;
+            this.time = time;
+        }
+    }
+
     private static List<PersistenceProvider> getProviders()
     {
         return PersistenceProviderResolverHolder.getPersistenceProviderResolver().getPersistenceProviders();
@@ -75,8 +365,19 @@ public class Persistence
     public static void generateSchema(String persistenceUnitName, Map properties)
     {
         List<PersistenceProvider> providers = getProviders();
+
+        // Try the provider declared for this unit first, and only fall back to asking each provider
+        PersistenceProvider declaredProvider = PersistenceUnitProviderIndex.getProvider(providers, persistenceUnitName, properties);
+        if (declaredProvider != null && declaredProvider.generateSchema(persistenceUnitName, properties))
+        {
+            return;
+        }
         for (PersistenceProvider provider : providers)
         {
+            if (provider == declaredProvider)
+            {
+                continue;
+            }
             final boolean generated = provider.generateSchema(persistenceUnitName, properties);
             if (generated)
             {
@@ -94,24 +395,45 @@ public class Persistence
      */
     public static PersistenceUtil getPersistenceUtil()
     {
-        return new PersistenceUtilImpl();
+        return persistenceUtil;
     }
 
+    /** Shared PersistenceUtil, being stateless apart from its thread-safe caches. */
+    private static final PersistenceUtil persistenceUtil = new PersistenceUtilImpl();
+
     /**
-     * Implementation of PersistenceUtil interface
+     * Implementation of PersistenceUtil interface.
+     * The provider that last determined the load state of an entity class is remembered, and subsequent calls for
+     * that class are dispatched straight to it, only walking the full list of providers when it cannot decide.
+     * The providers are obtained from the cache of {@link PersistenceProviderResolverHolder#getCachedPersistenceProviders()}
+     * so no resolver lookup is needed per call.
      * @since Java Persistence 2.0
      */
     private static class PersistenceUtilImpl implements PersistenceUtil
     {
-        public boolean isLoaded(Object entity, String attributeName)
+        /** The platform class loader, whose classes (like those of the bootstrap class loader) are never entities. */
+        private static final ClassLoader PLATFORM_CLASS_LOADER = ClassLoader.getPlatformClassLoader();
+
+        /** Provider affinity, per entity class. */
+        private static final ClassValue<AtomicReference<ProviderAffinity>> affinities = new ClassValue<AtomicReference<ProviderAffinity>>()
         {
-            PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+            protected AtomicReference<ProviderAffinity> computeValue(Class<?> type)
+            {
+                return new AtomicReference<>();
+            }
+        };
 
-            List<PersistenceProvider> providers = resolver.getPersistenceProviders();
+        public boolean isLoaded(Object entity, String attributeName)
+        {
+            List<PersistenceProvider> providers = PersistenceProviderResolverHolder.getCachedPersistenceProviders();
 
-            for (PersistenceProvider provider : providers)
+            AtomicReference<ProviderAffinity> affinityRef = getAffinityReference(entity);
+            ProviderAffinity affinity = (affinityRef != null) ? affinityRef.get() : null;
+            PersistenceProvider affinityProvider = (affinity != null) ? affinity.getProvider(providers) : null;
+            if (affinityProvider != null)
             {
-                LoadState loadstate = provider.getProviderUtil().isLoadedWithoutReference(entity, attributeName);
+                ProviderUtil util = affinityProvider.getProviderUtil();
+                LoadState loadstate = affinity.withReference ? util.isLoadedWithReference(entity, attributeName) : util.isLoadedWithoutReference(entity, attributeName);
                 if (loadstate == LoadState.LOADED)
                 {
                     return true;
@@ -119,20 +441,27 @@ public class Persistence
                 else if (loadstate == LoadState.NOT_LOADED)
                 {
                     return false;
+                } // else fall back to asking all providers
+            }
+
+            for (int i = 0; i < providers.size(); i++)
+            {
+                LoadState loadstate = providers.get(i).getProviderUtil().isLoadedWithoutReference(entity, attributeName);
+                if (loadstate != LoadState.UNKNOWN)
+                {
+                    setAffinity(affinityRef, providers, i, false);
+                    return loadstate == LoadState.LOADED;
                 } // else continue
             }
 
             // None of the providers could determine the load state try isLoadedWithReference
-            for (PersistenceProvider provider : providers)
+            for (int i = 0; i < providers.size(); i++)
             {
-                LoadState loadstate = provider.getProviderUtil().isLoadedWithReference(entity, attributeName);
-                if (loadstate == LoadState.LOADED)
+                LoadState loadstate = providers.get(i).getProviderUtil().isLoadedWithReference(entity, attributeName);
+                if (loadstate != LoadState.UNKNOWN)
                 {
-                    return true;
-                }
-                else if (loadstate == LoadState.NOT_LOADED)
-                {
-                    return false;
+                    setAffinity(affinityRef, providers, i, true);
+                    return loadstate == LoadState.LOADED;
                 } // else continue
             }
 
@@ -142,13 +471,14 @@ public class Persistence
 
         public boolean isLoaded(Object entity)
         {
-            PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
-
-            List<PersistenceProvider> providers = resolver.getPersistenceProviders();
+            List<PersistenceProvider> providers = PersistenceProviderResolverHolder.getCachedPersistenceProviders();
 
-            for (PersistenceProvider provider : providers)
+            AtomicReference<ProviderAffinity> affinityRef = getAffinityReference(entity);
+            ProviderAffinity affinity = (affinityRef != null) ? affinityRef.get() : null;
+            PersistenceProvider affinityProvider = (affinity != null) ? affinity.getProvider(providers) : null;
+            if (affinityProvider != null)
             {
-                LoadState loadstate = provider.getProviderUtil().isLoaded(entity);
+                LoadState loadstate = affinityProvider.getProviderUtil().isLoaded(entity);
                 if (loadstate == LoadState.LOADED)
                 {
                     return true;
@@ -156,11 +486,122 @@ public class Persistence
                 else if (loadstate == LoadState.NOT_LOADED)
                 {
                     return false;
+                } // else fall back to asking all providers
+            }
+
+            for (int i = 0; i < providers.size(); i++)
+            {
+                LoadState loadstate = providers.get(i).getProviderUtil().isLoaded(entity);
+                if (loadstate != LoadState.UNKNOWN)
+                {
+                    if (affinityProvider == null || affinity.providerIndex != i)
+                    {
+                        setAffinity(affinityRef, providers, i, false);
+                    }
+                    return loadstate == LoadState.LOADED;
                 } // else continue
             }
             // None of the providers could determine the load state
             return true;
         }
+
+        public Map<String, Boolean> getLoadState(Object entity, Collection<String> attributeNames)
+        {
+            List<PersistenceProvider> providers = PersistenceProviderResolverHolder.getCachedPersistenceProviders();
+
+            AtomicReference<ProviderAffinity> affinityRef = getAffinityReference(entity);
+            ProviderAffinity affinity = (affinityRef != null) ? affinityRef.get() : null;
+            PersistenceProvider affinityProvider = (affinity != null && !affinity.withReference) ? affinity.getProvider(providers) : null;
+            Map<String, LoadState> providerLoadStates = null;
+            if (affinityProvider != null)
+            {
+                // Ask the provider that owns this entity class for all attributes at once
+                providerLoadStates = affinityProvider.getProviderUtil().getLoadState(entity, attributeNames);
+            }
+
+            Map<String, Boolean> loadStates = new LinkedHashMap<>();
+            for (String attributeName : attributeNames)
+            {
+                LoadState loadstate = (providerLoadStates != null) ? providerLoadStates.get(attributeName) : null;
+                if (loadstate == LoadState.LOADED)
+                {
+                    loadStates.put(attributeName, Boolean.TRUE);
+                }
+                else if (loadstate == LoadState.NOT_LOADED)
+                {
+                    loadStates.put(attributeName, Boolean.FALSE);
+                }
+                else
+                {
+                    loadStates.put(attributeName, isLoaded(entity, attributeName));
+                }
+            }
+            return loadStates;
+        }
+
+        /**
+         * Accessor for the holder of the provider affinity of the class of the entity. Classes defined by the
+         * bootstrap or platform class loaders are never entities, so have no affinity (which would otherwise be
+         * attached to them for the life of the JVM).
+         * @param entity The entity (may be null)
+         * @return The affinity holder, or null if the class can't have an affinity
+         */
+        private static AtomicReference<ProviderAffinity> getAffinityReference(Object entity)
+        {
+            if (entity == null)
+            {
+                return null;
+            }
+            Class<?> cls = entity.getClass();
+            ClassLoader loader = cls.getClassLoader();
+            if (loader == null || loader == PLATFORM_CLASS_LOADER)
+            {
+                return null;
+            }
+            return affinities.get(cls);
+        }
+
+        private static void setAffinity(AtomicReference<ProviderAffinity> affinityRef, List<PersistenceProvider> providers, int providerIndex,
+                boolean withReference)
+        {
+            if (affinityRef != null)
+            {
+                affinityRef.set(new ProviderAffinity(providers, providerIndex, withReference));
+            }
+        }
+    }
+
+    /**
+     * Record of the provider that last determined the load state for an entity class, as its position in the list of
+     * providers it was selected from (so that it is disregarded once the resolver returns a different list), and
+     * whether it answered from <code>isLoadedWithReference</code>. The affinity is attached to the entity class, which
+     * may be defined by a class loader that outlives the provider (e.g. a shared library loader), so the providers are
+     * only weakly referenced, leaving them to be released as the resolver caches release them.
+     */
+    private static class ProviderAffinity
+    {
+        final WeakReference<List<PersistenceProvider>> providersRef;
+
+        final int providerIndex;
+
+        final boolean withReference;
+
+        ProviderAffinity(List<PersistenceProvider> providers, int providerIndex, boolean withReference)
+        {
+            this.providersRef = new WeakReference<>(providers);
+            this.providerIndex = providerIndex;
+            this.withReference = withReference;
+        }
+
+        /**
+         * Accessor for the provider, when the affinity was recorded against the specified list of providers.
+         * @param providers The current providers
+         * @return The provider, or null if the affinity is for a different (or reclaimed) list
+         */
+        PersistenceProvider getProvider(List<PersistenceProvider> providers)
+        {
+            return (providersRef.get() == providers) ? providers.get(providerIndex) : null;
+        }
     }
 
     /** Only present for TCK compatibility allegedly, but then that is private. */
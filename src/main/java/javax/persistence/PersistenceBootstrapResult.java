@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of bootstrapping several persistence units together using
+ * {@link Persistence#createEntityManagerFactories(Map, java.util.concurrent.Executor, boolean)}.
+ * All maps are keyed by persistence unit name and iterate in the order the units were supplied.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ */
+public class PersistenceBootstrapResult
+{
+    private final Map<String, EntityManagerFactory> entityManagerFactories;
+
+    private final Map<String, Long> bootstrapTimes;
+
+    private final Map<String, PersistenceException> errors;
+
+    PersistenceBootstrapResult(Map<String, EntityManagerFactory> entityManagerFactories, Map<String, Long> bootstrapTimes,
+            Map<String, PersistenceException> errors)
+    {
+        this.entityManagerFactories = Collections.unmodifiableMap(entityManagerFactories);
+        this.bootstrapTimes = Collections.unmodifiableMap(bootstrapTimes);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Accessor for the factories that were created successfully.
+     * @return The entity manager factories, keyed by persistence unit name
+     */
+    public Map<String, EntityManagerFactory> getEntityManagerFactories()
+    {
+        return entityManagerFactories;
+    }
+
+    /**
+     * Accessor for the time taken to bootstrap each persistence unit, whether successful or not.
+     * @return The elapsed time in nanoseconds, keyed by persistence unit name
+     */
+    public Map<String, Long> getBootstrapTimes()
+    {
+        return bootstrapTimes;
+    }
+
+    /**
+     * Accessor for the failures of persistence units that could not be bootstrapped.
+     * @return The errors, keyed by persistence unit name
+     */
+    public Map<String, PersistenceException> getErrors()
+    {
+        return errors;
+    }
+
+    /**
+     * Whether all persistence units were bootstrapped successfully.
+     * @return Whether there were no errors
+     */
+    public boolean isSuccessful()
+    {
+        return errors.isEmpty();
+    }
+}
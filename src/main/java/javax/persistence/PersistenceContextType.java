@@ -26,5 +26,36 @@ public enum PersistenceContextType {
     /**
      * Extended persistence context
      */
-    EXTENDED
+    EXTENDED;
+
+    /**
+     * Property (for the persistence unit, entity manager, or <code>PersistenceContext.properties</code>) limiting
+     * the number of entities managed by a persistence context. When the limit is exceeded the provider evicts
+     * (detaches) the least recently used entities that have no pending changes, so long-running contexts (typically
+     * <code>EXTENDED</code>) do not grow without bound. Entities with pending changes are never evicted, so the
+     * limit can be exceeded until the next flush. A value of 0 (the default) means no limit.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @see EntityManager#getManagedEntityCount()
+     */
+    public static final String MAX_MANAGED_ENTITIES = "javax.persistence.context.maxManagedEntities";
+
+    /**
+     * Property specifying how entities are chosen for eviction when {@link #MAX_MANAGED_ENTITIES} is exceeded.
+     * The value is one of {@link #EVICTION_POLICY_LRU} (the default) or {@link #EVICTION_POLICY_NONE}, where the
+     * latter disables eviction so that the limit only serves for monitoring.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String EVICTION_POLICY = "javax.persistence.context.evictionPolicy";
+
+    /**
+     * Value for {@link #EVICTION_POLICY} evicting the least recently used clean entities.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String EVICTION_POLICY_LRU = "LRU";
+
+    /**
+     * Value for {@link #EVICTION_POLICY} disabling eviction.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String EVICTION_POLICY_NONE = "NONE";
 }
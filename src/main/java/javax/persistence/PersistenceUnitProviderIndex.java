@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import javax.persistence.spi.PersistenceProvider;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Index of the provider class declared for each persistence unit in the <code>META-INF/persistence.xml</code>
+ * files visible to a class loader. This allows bootstrap to dispatch directly to the right provider rather than
+ * asking each provider in turn. The files are parsed once per class loader.
+ */
+class PersistenceUnitProviderIndex
+{
+    /** Name of the property that can be used to override the provider of a persistence unit. */
+    private static final String PROVIDER_PROPERTY = "javax.persistence.provider";
+
+    private static final String PERSISTENCE_XML = "META-INF/persistence.xml";
+
+    /** Provider class name keyed by persistence unit name, keyed by class loader (weakly). */
+    private static final Map<ClassLoader, Map<String, String>> providerNamesByLoader = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Provider class name keyed by persistence unit name, for the bootstrap class loader. */
+    private static volatile Map<String, String> bootstrapLoaderProviderNames;
+
+    private PersistenceUnitProviderIndex()
+    {
+    }
+
+    /**
+     * Find the provider for the specified persistence unit, using the "javax.persistence.provider" property when
+     * specified, otherwise the &lt;provider&gt; declared for the unit in persistence.xml.
+     * @param providers The available providers
+     * @param persistenceUnitName Name of the persistence unit
+     * @param properties Properties for the persistence unit (may be null)
+     * @return The provider, or null if not declared or not available
+     */
+    static PersistenceProvider getProvider(List<PersistenceProvider> providers, String persistenceUnitName, Map properties)
+    {
+        Object providerName = (properties != null) ? properties.get(PROVIDER_PROPERTY) : null;
+        if (providerName instanceof Class)
+        {
+            providerName = ((Class) providerName).getName();
+        }
+        if (!(providerName instanceof String))
+        {
+            providerName = getProviderNames(Thread.currentThread().getContextClassLoader()).get(persistenceUnitName);
+        }
+        if (providerName == null)
+        {
+            return null;
+        }
+
+        for (PersistenceProvider provider : providers)
+        {
+            if (provider.getClass().getName().equals(providerName))
+            {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> getProviderNames(ClassLoader loader)
+    {
+        if (loader == null)
+        {
+            Map<String, String> providerNames = bootstrapLoaderProviderNames;
+            if (providerNames == null)
+            {
+                providerNames = loadProviderNames(ClassLoader.getSystemClassLoader());
+                bootstrapLoaderProviderNames = providerNames;
+            }
+            return providerNames;
+        }
+
+        return providerNamesByLoader.computeIfAbsent(loader, PersistenceUnitProviderIndex::loadProviderNames);
+    }
+
+    /**
+     * Parse all persistence.xml files visible to the class loader, extracting the provider of each unit.
+     * Where a unit is defined more than once, the first definition found is used.
+     * @param loader The class loader
+     * @return Provider class name keyed by persistence unit name
+     */
+    private static Map<String, String> loadProviderNames(ClassLoader loader)
+    {
+        Map<String, String> providerNames = new HashMap<>();
+        try
+        {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setValidating(false);
+            try
+            {
+                factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            }
+            catch (Exception e)
+            {
+                // Not supported by this parser
+            }
+
+            Enumeration<URL> urls = loader.getResources(PERSISTENCE_XML);
+            while (urls.hasMoreElements())
+            {
+                URL url = urls.nextElement();
+                try
+                {
+                    URLConnection conn = url.openConnection();
+                    conn.setUseCaches(false);
+                    try (InputStream in = conn.getInputStream())
+                    {
+                        SAXParser parser = factory.newSAXParser();
+                        parser.parse(in, new ProviderHandler(providerNames));
+                    }
+                }
+                catch (Exception e)
+                {
+                    // Unreadable file, so leave its units to be found by asking each provider
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // Leave all units to be found by asking each provider
+        }
+        return providerNames;
+    }
+
+    /**
+     * SAX handler extracting the &lt;provider&gt; of each &lt;persistence-unit&gt;.
+     */
+    private static class ProviderHandler extends DefaultHandler
+    {
+        private final Map<String, String> providerNames;
+
+        private String unitName;
+
+        private StringBuilder providerName;
+
+        ProviderHandler(Map<String, String> providerNames)
+        {
+            this.providerNames = providerNames;
+        }
+
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+        {
+            if ("persistence-unit".equals(localName))
+            {
+                unitName = attributes.getValue("name");
+            }
+            else if ("provider".equals(localName) && unitName != null)
+            {
+                providerName = new StringBuilder();
+            }
+        }
+
+        public void characters(char[] ch, int start, int length)
+        {
+            if (providerName != null)
+            {
+                providerName.append(ch, start, length);
+            }
+        }
+
+        public void endElement(String uri, String localName, String qName)
+        {
+            if ("provider".equals(localName) && providerName != null)
+            {
+                String name = providerName.toString().trim();
+                if (!name.isEmpty() && !providerNames.containsKey(unitName))
+                {
+                    providerNames.put(unitName, name);
+                }
+                providerName = null;
+            }
+            else if ("persistence-unit".equals(localName))
+            {
+                unitName = null;
+            }
+        }
+    }
+}
@@ -14,6 +14,9 @@ package javax.persistence;
  * <p>
  * The methods of this interface should only be invoked on entity instances obtained from or managed by entity
  * managers for this persistence unit or on new entity instances.
+ * <p>
+ * The load state of several attributes can be determined in one call using the inherited
+ * <code>getLoadState</code> methods, which providers may implement from their internal state.
  * @since Java Persistence 2.0
  */
 public interface PersistenceUnitUtil extends PersistenceUtil
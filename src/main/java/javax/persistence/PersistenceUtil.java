@@ -9,6 +9,14 @@
  */
 package javax.persistence;
 
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Utility interface between the application and the persistence provider(s).
  * <p>
@@ -39,4 +47,45 @@ public interface PersistenceUtil
      * @return false if the entity has not been loaded, else true
      */
     public boolean isLoaded(Object entity);
+
+    /**
+     * Determine the load state of several persistent attributes of an entity in one call.
+     * The returned map has an entry per attribute, in the order given, with the value as would be returned by
+     * <code>isLoaded(Object, String)</code>.
+     * <p>
+     * By default this method calls <code>isLoaded(Object, String)</code> for each attribute, however the
+     * implementation may choose to override this method to determine the load states in a single operation.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entity entity containing the attributes
+     * @param attributeNames names of the attributes whose load state is to be determined
+     * @return map of load state keyed by attribute name
+     */
+    default Map<String, Boolean> getLoadState(Object entity, Collection<String> attributeNames)
+    {
+        Map<String, Boolean> loadStates = new LinkedHashMap<>();
+        for (String attributeName : attributeNames)
+        {
+            loadStates.put(attributeName, isLoaded(entity, attributeName));
+        }
+        return loadStates;
+    }
+
+    /**
+     * Determine the load state of all persistent attributes of an entity in one call.
+     * The returned map has an entry per attribute of the specified type, with the value as would be returned by
+     * <code>isLoaded(Object, String)</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entity entity containing the attributes
+     * @param type managed type of the entity, as obtained from the <code>Metamodel</code>
+     * @return map of load state keyed by attribute name
+     */
+    default Map<String, Boolean> getLoadState(Object entity, ManagedType<?> type)
+    {
+        List<String> attributeNames = new ArrayList<>();
+        for (Attribute<?, ?> attribute : type.getAttributes())
+        {
+            attributeNames.add(attribute.getName());
+        }
+        return getLoadState(entity, attributeNames);
+    }
 }
@@ -14,6 +14,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 /**
@@ -25,6 +27,69 @@ import java.util.stream.Stream;
  */
 public interface Query {
 
+    /**
+     * Hint for the number of rows to fetch from the datastore per round trip when iterating query results.
+     * This is of particular use with <code>getResultStream</code>, where it bounds the number of results held
+     * in memory at any one time when the provider supports streaming.
+     * The value should be a positive integer (or its String form).
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_FETCH_SIZE = "javax.persistence.query.fetchSize";
+
+    /**
+     * Hint that the entities returned will not be modified, so the provider need not take a snapshot of their
+     * state for dirty checking, and excludes them from flush. Any changes made to such entities are not written to
+     * the datastore. The value should be a boolean (or its String form, for use in <code>QueryHint</code>).
+     * <p>
+     * This hint can also be passed in the properties of <code>EntityManager.find</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_READ_ONLY = "javax.persistence.query.readOnly";
+
+    /**
+     * Hint for the direction in which the rows of the result will be processed, allowing the JDBC driver to
+     * optimise fetching. The value is one of "FORWARD" (the default), "REVERSE" or "UNKNOWN", as for
+     * <code>java.sql.ResultSet.setFetchDirection</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_FETCH_DIRECTION = "javax.persistence.query.fetchDirection";
+
+    /**
+     * Hint for the type of JDBC result set to use. The value is one of "FORWARD_ONLY" (the default),
+     * "SCROLL_INSENSITIVE" or "SCROLL_SENSITIVE", as for the <code>java.sql.ResultSet</code> type constants.
+     * A forward-only result set is required by some drivers for results to be streamed rather than buffered.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_RESULT_SET_TYPE = "javax.persistence.query.resultSetType";
+
+    /**
+     * Hint that the results should be streamed from the datastore as they are consumed, rather than being
+     * materialised before the first is returned. The provider configures the statement as needed for the driver
+     * (for example a forward-only result set with a fetch size, in a transaction, for PostgreSQL), and holds
+     * the cursor open until the results have been read or the stream is closed. The value should be a boolean (or its
+     * String form). Applies to <code>getResultStream</code>, and to lazily loaded result lists where supported.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_STREAM_RESULTS = "javax.persistence.query.streamResults";
+
+    /**
+     * Hint that the results of the query should be cached in the query result cache, and returned from there
+     * when the query is executed again with the same parameter values, until invalidated by a write to an
+     * entity class involved in the query. See {@link QueryCache}. The value should be a boolean (or its
+     * String form, for use in <code>QueryHint</code>). The <code>javax.persistence.cache.retrieveMode</code>
+     * and <code>javax.persistence.cache.storeMode</code> hints apply to the query result cache as for the
+     * second-level cache.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_CACHEABLE = "javax.persistence.query.cacheable";
+
+    /**
+     * Hint for the query result cache region to cache the results of the query in, when {@link #HINT_CACHEABLE}
+     * is set. Defaults to {@link QueryCache#DEFAULT_REGION}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    String HINT_CACHE_REGION = "javax.persistence.query.cacheRegion";
+
 	/**
 	 * Execute a SELECT query and return the query results as an untyped List.
 	 *
@@ -41,7 +106,10 @@ public interface Query {
     /**
      * Execute a SELECT query and return the query results as an untyped <code>java.util.stream.Stream</code>.
      * By default this method delegates to <code>getResultList().stream()</code>,
-     * however persistence provider may choose to override this method to provide additional capabilities.
+     * however persistence provider may choose to override this method to provide additional capabilities,
+     * such as streaming the results from a cursor (see <code>isStreamingSupported</code>). In that case the stream
+     * should be closed after use to release the cursor, and the fetch size and <code>HINT_STREAM_RESULTS</code>
+     * hints must be honoured.
      *
      * @return a stream of the results
      * @throws IllegalStateException if called for a Java Persistence query language UPDATE or DELETE statement
@@ -60,6 +128,23 @@ public interface Query {
         return getResultList().stream();
     }
 
+    /**
+     * Whether the provider returns results from <code>getResultStream</code> lazily from a cursor, fetching
+     * (in batches of {@link #HINT_FETCH_SIZE}) as the stream is consumed, rather than materialising the whole
+     * result before the first element is returned. When streaming is supported the stream holds datastore resources
+     * until it is closed, so should be used in a try-with-resources block.
+     * <p>
+     * By default this method returns false, since the default <code>getResultStream</code> delegates to
+     * <code>getResultList</code>.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return whether results are streamed
+     * @see QueryResultSpliterator
+     */
+    default boolean isStreamingSupported()
+    {
+        return false;
+    }
+
     /**
 	 * Execute a SELECT query that returns a single untyped result.
 	 *
@@ -103,6 +188,106 @@ public interface Query {
 	 */
 	int executeUpdate();
 
+    /**
+     * Execute a SELECT query asynchronously, returning the query results as an untyped List on completion.
+     * By default this method runs <code>getResultList</code> on the default executor (using virtual threads where
+     * available), however persistence provider may choose to override this method to execute the query without
+     * blocking a thread. The entity manager must not be used by the caller until the returned stage completes.
+     * <p>
+     * If the query timeout is exceeded, or the stage is cancelled using <code>toCompletableFuture().cancel</code>,
+     * the query is interrupted and the stage completes exceptionally with a <code>QueryTimeoutException</code> once
+     * the query has stopped executing, so dependent stages never run while the entity manager is still in use.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return a stage completing with the list of results, or exceptionally with any exception as would be thrown by
+     * <code>getResultList</code>
+     * @see #getResultList()
+     */
+    default CompletionStage<? extends List> getResultListAsync()
+    {
+        return getResultListAsync(null);
+    }
+
+    /**
+     * Execute a SELECT query asynchronously on the specified executor, returning the query results as an untyped
+     * List on completion.
+     * See {@link #getResultListAsync()}.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to run the query on (null implies the default executor)
+     * @return a stage completing with the list of results
+     */
+    default CompletionStage<? extends List> getResultListAsync(Executor executor)
+    {
+        return AsyncExecutionSupport.execute(this, executor, this::getResultList);
+    }
+
+    /**
+     * Execute a SELECT query asynchronously that returns a single untyped result.
+     * By default this method runs <code>getSingleResult</code> on the default executor (using virtual threads
+     * where available), however persistence provider may choose to override this method to execute the query
+     * without blocking a thread. The entity manager must not be used by the caller until the returned stage completes.
+     * <p>
+     * If the query timeout is exceeded, or the stage is cancelled using <code>toCompletableFuture().cancel</code>,
+     * the query is interrupted and the stage completes exceptionally with a <code>QueryTimeoutException</code> once
+     * the query has stopped executing, so dependent stages never run while the entity manager is still in use.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return a stage completing with the result, or exceptionally with any exception as would be thrown by
+     * <code>getSingleResult</code>
+     * @see #getSingleResult()
+     */
+    default CompletionStage<?> getSingleResultAsync()
+    {
+        return getSingleResultAsync(null);
+    }
+
+    /**
+     * Execute a SELECT query asynchronously on the specified executor, that returns a single untyped result.
+     * See {@link #getSingleResultAsync()}.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to run the query on (null implies the default executor)
+     * @return a stage completing with the result
+     */
+    default CompletionStage<?> getSingleResultAsync(Executor executor)
+    {
+        return AsyncExecutionSupport.execute(this, executor, this::getSingleResult);
+    }
+
+    /**
+     * Execute an update or delete statement asynchronously.
+     * By default this method runs <code>executeUpdate</code> on the default executor (using virtual threads where
+     * available), however persistence provider may choose to override this method to execute the statement
+     * without blocking a thread. The entity manager must not be used by the caller until the returned stage completes.
+     * <p>
+     * If the query timeout is exceeded, or the stage is cancelled using <code>toCompletableFuture().cancel</code>,
+     * the query is interrupted and the stage completes exceptionally with a <code>QueryTimeoutException</code> once
+     * the query has stopped executing, so dependent stages never run while the entity manager is still in use.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return a stage completing with the number of entities updated or deleted, or exceptionally with any exception
+     * as would be thrown by <code>executeUpdate</code>
+     * @see #executeUpdate()
+     */
+    default CompletionStage<Integer> executeUpdateAsync()
+    {
+        return executeUpdateAsync(null);
+    }
+
+    /**
+     * Execute an update or delete statement asynchronously on the specified executor.
+     * See {@link #executeUpdateAsync()}.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to run the statement on (null implies the default executor)
+     * @return a stage completing with the number of entities updated or deleted
+     */
+    default CompletionStage<Integer> executeUpdateAsync(Executor executor)
+    {
+        return AsyncExecutionSupport.execute(this, executor, this::executeUpdate);
+    }
+
 	/**
 	 * Set the maximum number of results to retrieve.
 	 *
@@ -148,6 +333,162 @@ public interface Query {
 	 */
 	int getFirstResult();
 
+    /**
+     * Set the maximum number of results to retrieve, allowing for values beyond the range of an int.
+     * A value of <code>Long.MAX_VALUE</code> means no limit.
+     * <p>
+     * By default this method calls <code>setMaxResults</code> when the value fits in an int, however the
+     * persistence provider may choose to override this method to support larger values.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param maxResult maximum number of results to retrieve
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @throws PersistenceException if the value is larger than <code>Integer.MAX_VALUE</code> and the persistence
+     * provider doesn't support it
+     */
+    default Query setMaxResultsLong(long maxResult)
+    {
+        return setMaxResults(toIntResultLimit(maxResult, Long.MAX_VALUE));
+    }
+
+    /**
+     * The maximum number of results the query object was set to retrieve, as a long.
+     * Returns <code>Long.MAX_VALUE</code> if no limit was applied to the query object.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return maximum number of results
+     */
+    default long getMaxResultsLong()
+    {
+        int maxResults = getMaxResults();
+        return (maxResults == Integer.MAX_VALUE) ? Long.MAX_VALUE : maxResults;
+    }
+
+    /**
+     * Set the position of the first result to retrieve, allowing for values beyond the range of an int.
+     * <p>
+     * By default this method calls <code>setFirstResult</code> when the value fits in an int, however the
+     * persistence provider may choose to override this method to support larger values.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param startPosition position of the first result, numbered from 0
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @throws PersistenceException if the value is larger than <code>Integer.MAX_VALUE</code> and the persistence
+     * provider doesn't support it
+     */
+    default Query setFirstResultLong(long startPosition)
+    {
+        return setFirstResult(toIntResultLimit(startPosition, -1));
+    }
+
+    /**
+     * The position of the first result the query object was set to retrieve, as a long.
+     * Returns 0 if no first result was applied to the query object.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return position of the first result
+     */
+    default long getFirstResultLong()
+    {
+        return getFirstResult();
+    }
+
+    /**
+     * Execute an update or delete statement, returning the number of entities updated or deleted as a long,
+     * as for JDBC <code>executeLargeUpdate</code>.
+     * <p>
+     * By default this method calls <code>executeUpdate</code>, however the persistence provider may choose to
+     * override this method to support counts beyond the range of an int.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return the number of entities updated or deleted
+     * @throws IllegalStateException if called for a Java Persistence query language SELECT statement or for
+     * a criteria query
+     * @throws TransactionRequiredException if there is no transaction
+     * @throws QueryTimeoutException if the statement execution exceeds the query timeout value set and only
+     * the statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction
+     * is rolled back
+     */
+    default long executeLargeUpdate()
+    {
+        return executeUpdate();
+    }
+
+    /**
+     * Convert a long first/max result value to the int value for the int-based methods.
+     * @param value The value
+     * @param unlimited The long value (if any) that maps to <code>Integer.MAX_VALUE</code>
+     * @return The int value
+     * @throws IllegalArgumentException if the value is negative
+     * @throws PersistenceException if the value doesn't fit in an int
+     */
+    private static int toIntResultLimit(long value, long unlimited)
+    {
+        if (value < 0)
+        {
+            throw new IllegalArgumentException("Value must not be negative : " + value);
+        }
+        if (value == unlimited)
+        {
+            return Integer.MAX_VALUE;
+        }
+        if (value > Integer.MAX_VALUE)
+        {
+            throw new PersistenceException("Persistence provider does not support result positions beyond Integer.MAX_VALUE : " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Set the number of rows to fetch from the datastore per round trip when iterating the results.
+     * This is equivalent to setting the {@link #HINT_FETCH_SIZE} hint, and is honoured by
+     * <code>getResultStream</code> when the provider supports streaming.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param fetchSize the fetch size
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     */
+    default Query setFetchSize(int fetchSize)
+    {
+        if (fetchSize < 0)
+        {
+            throw new IllegalArgumentException("Fetch size must not be negative : " + fetchSize);
+        }
+        return setHint(HINT_FETCH_SIZE, fetchSize);
+    }
+
+    /**
+     * The number of rows to fetch per round trip, as set by <code>setFetchSize</code> or the
+     * {@link #HINT_FETCH_SIZE} hint.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return the fetch size, or 0 if not set (in which case the driver default applies)
+     */
+    default int getFetchSize()
+    {
+        Object value = getHints().get(HINT_FETCH_SIZE);
+        if (value instanceof Number)
+        {
+            return ((Number) value).intValue();
+        }
+        else if (value instanceof String)
+        {
+            try
+            {
+                return Integer.parseInt(((String) value).trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                // Not a valid fetch size, so treat as not set
+            }
+        }
+        return 0;
+    }
+
 	/**
 	 * Set a query property or hint. The hints elements may be used
 	 * to specify query properties and hints. Properties defined by
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+/**
+ * Interface used to interact with the query result cache, which holds the results of queries executed with the
+ * {@link Query#HINT_CACHEABLE} hint, keyed by the query, its parameter values and its first/max results.
+ * Entity results are held as primary keys, and resolved against the second-level cache (or datastore) when returned.
+ * <p>
+ * A cached result is invalidated automatically when an instance of any entity class the query involves is
+ * written, by comparing the time the result was cached with the last update timestamp of each of those classes.
+ * The timestamp of a class is updated on commit of a transaction writing to it, including by bulk update/delete
+ * queries. Changes made to the datastore outside of the persistence unit must be notified using
+ * {@link #evict(Class)}.
+ * <p>
+ * Results are cached in regions, as specified by the {@link Query#HINT_CACHE_REGION} hint, which may be
+ * sized and expired separately using the <code>javax.persistence.cache.region</code> persistence unit
+ * properties (see {@link CacheRegion}), and evicted independently.
+ * If a query result cache is not in use, the methods of this interface have no effect.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @see EntityManagerFactory#getQueryCache()
+ */
+public interface QueryCache
+{
+    /** Name of the region used for queries that don't specify one. */
+    public static final String DEFAULT_REGION = "javax.persistence.query.DefaultRegion";
+
+    /**
+     * Invalidate all cached results of queries involving the specified entity class (or its subclasses), by
+     * updating the last update timestamp of the class. Use this after changing the datastore other than through
+     * the persistence unit.
+     * @param cls entity class
+     */
+    public void evict(Class cls);
+
+    /**
+     * Remove the cached results in the specified region.
+     * @param region name of the region
+     */
+    public void evictRegion(String region);
+
+    /**
+     * Clear the query result cache.
+     */
+    public void evictAll();
+
+    /**
+     * Return the time of the last write to the specified entity class, as used for invalidating cached results.
+     * @param cls entity class
+     * @return the timestamp, in milliseconds since the epoch, or 0 if there have been no writes since the cache started
+     */
+    public long getLastUpdateTimestamp(Class cls);
+
+    /**
+     * Return an object of the specified type to allow access to the provider-specific API. If the provider's
+     * QueryCache implementation does not support the specified class, the PersistenceException is thrown.
+     * @param cls the class of the object to be returned. This is normally either the underlying QueryCache
+     * implementation class or an interface that it implements.
+     * @return an instance of the specified class
+     * @throws PersistenceException if the provider does not support the call
+     * @param <T> Type
+     */
+    public <T> T unwrap(Class<T> cls);
+}
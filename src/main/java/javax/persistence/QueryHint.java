@@ -19,6 +19,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
  * NamedNativeQuery} annotation.
  *
  * <p> Vendor-specific hints that are not recognized by a provider are ignored.
+ * The names of the standard hints are available as the <code>HINT_</code> constants of {@link Query}.
  *
  * @since Java Persistence 1.0
  */
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default implementation of {@link TypedQuery#getResultPublisher()}, which pages through the results of the
+ * query using <code>setFirstResult</code>/<code>setMaxResults</code>. Each page is sized by the outstanding
+ * demand of the subscriber (capped at the fetch size hint, or {@link #DEFAULT_MAX_PAGE_SIZE}), so the results
+ * held in memory are bounded by demand rather than by the size of the result.
+ * <p>
+ * The query is executed on the executor, one page at a time. Since the query object is used for every page,
+ * only a single subscriber is supported, and the query must not be used by the caller until the subscription
+ * terminates. Since Reactive Streams does not allow null elements, a null result is signalled to <code>onError</code>
+ * as a <code>NullPointerException</code>.
+ * @param <X> query result type
+ */
+class QueryResultPublisher<X> implements Flow.Publisher<X>
+{
+    /** Maximum page size when the query has no fetch size hint. */
+    static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+
+    private final TypedQuery<X> query;
+
+    private final Executor executor;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    QueryResultPublisher(TypedQuery<X> query, Executor executor)
+    {
+        this.query = query;
+        this.executor = (executor != null) ? executor : AsyncExecutionSupport.getDefaultExecutor();
+    }
+
+    public void subscribe(Flow.Subscriber<? super X> subscriber)
+    {
+        if (subscriber == null)
+        {
+            throw new NullPointerException("subscriber");
+        }
+        if (!subscribed.compareAndSet(false, true))
+        {
+            subscriber.onSubscribe(new Flow.Subscription()
+            {
+                public void request(long n)
+                {
+                }
+
+                public void cancel()
+                {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Query result publisher only supports a single subscriber"));
+            return;
+        }
+
+        subscriber.onSubscribe(new PageSubscription(subscriber));
+    }
+
+    private int getMaxPageSize()
+    {
+        int fetchSize = query.getFetchSize();
+        return (fetchSize > 0) ? fetchSize : DEFAULT_MAX_PAGE_SIZE;
+    }
+
+    /**
+     * Subscription that fetches a page of results whenever there is outstanding demand.
+     * Pages are fetched and delivered serially, by at most one task on the executor at a time, and all signals to the
+     * subscriber are made by that task. Each page is fetched with one extra result where possible, so that the end of
+     * the results is detected (and <code>onComplete</code> signalled) as soon as the last result is delivered, without
+     * waiting for further demand.
+     */
+    private class PageSubscription implements Flow.Subscription
+    {
+        private final Flow.Subscriber<? super X> subscriber;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        private volatile boolean cancelled;
+
+        /** Error from an invalid request, to be signalled by the draining task. */
+        private volatile Throwable pendingError;
+
+        /** Results fetched but not yet delivered. Only accessed by the draining task. */
+        private final Deque<X> buffer = new ArrayDeque<>();
+
+        /** Whether there are no results beyond those fetched. Only accessed by the draining task. */
+        private boolean exhausted;
+
+        /** Position of the next result to fetch. Only accessed by the draining task. */
+        private long position;
+
+        /** Number of results still to fetch, limited by the max results of the query. Only accessed by the draining task. */
+        private long remaining;
+
+        private final int maxPageSize;
+
+        PageSubscription(Flow.Subscriber<? super X> subscriber)
+        {
+            this.subscriber = subscriber;
+            this.position = query.getFirstResultLong();
+            this.remaining = query.getMaxResultsLong();
+            this.maxPageSize = getMaxPageSize();
+        }
+
+        public void request(long n)
+        {
+            if (cancelled)
+            {
+                return;
+            }
+            if (n <= 0)
+            {
+                // Signalled by the draining task, so that it is not concurrent with onNext
+                pendingError = new IllegalArgumentException("Subscription request must be positive, but was " + n);
+            }
+            else
+            {
+                long current;
+                do
+                {
+                    current = demand.get();
+                }
+                while (!demand.compareAndSet(current, (current + n < 0) ? Long.MAX_VALUE : current + n));
+            }
+
+            if (pendingDrains.getAndIncrement() == 0)
+            {
+                executor.execute(this::drain);
+            }
+        }
+
+        public void cancel()
+        {
+            cancelled = true;
+
+            // Have the draining task release any results fetched but not delivered
+            if (pendingDrains.getAndIncrement() == 0)
+            {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain()
+        {
+            int missed = 1;
+            do
+            {
+                while (!cancelled)
+                {
+                    Throwable error = pendingError;
+                    if (error != null)
+                    {
+                        cancelled = true;
+                        subscriber.onError(error);
+                        break;
+                    }
+
+                    if (buffer.isEmpty())
+                    {
+                        if (exhausted || remaining <= 0)
+                        {
+                            complete();
+                            break;
+                        }
+                        if (demand.get() == 0)
+                        {
+                            break;
+                        }
+                        try
+                        {
+                            fetchPage();
+                        }
+                        catch (RuntimeException e)
+                        {
+                            cancelled = true;
+                            subscriber.onError(e);
+                            break;
+                        }
+                        continue;
+                    }
+
+                    if (demand.get() == 0)
+                    {
+                        break;
+                    }
+                    X result = buffer.poll();
+                    demand.decrementAndGet();
+                    try
+                    {
+                        subscriber.onNext(result);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        // Subscriber violated the specification by throwing, so treat the subscription as cancelled
+                        cancelled = true;
+                    }
+                }
+                if (cancelled)
+                {
+                    // Terminated, so release any results not delivered. No further drains are scheduled
+                    buffer.clear();
+                    return;
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        /**
+         * Fetch the next page into the buffer, sized by the demand, with one extra result to detect the end of the results.
+         */
+        private void fetchPage()
+        {
+            long pageSize = Math.min(demand.get(), maxPageSize);
+            int fetchSize = (int) Math.min(Math.min(pageSize + 1, remaining), Integer.MAX_VALUE);
+
+            List<X> page;
+            long origFirstResult = query.getFirstResultLong();
+            long origMaxResults = query.getMaxResultsLong();
+            try
+            {
+                query.setFirstResultLong(position);
+                query.setMaxResults(fetchSize);
+                page = query.getResultList();
+            }
+            finally
+            {
+                query.setFirstResultLong(origFirstResult);
+                query.setMaxResultsLong(origMaxResults);
+            }
+
+            for (int i = 0; i < page.size(); i++)
+            {
+                X result = page.get(i);
+                if (result == null)
+                {
+                    throw new NullPointerException("Query result at position " + (position + i) + " is null, which cannot be published");
+                }
+                buffer.add(result);
+            }
+            position += page.size();
+            remaining -= page.size();
+            if (page.size() < fetchSize)
+            {
+                exhausted = true;
+            }
+        }
+
+        private void complete()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base class for a persistence provider to use when implementing <code>getResultStream</code> over a cursor,
+ * so that results are fetched lazily (in batches of the fetch size) rather than materialised up front.
+ * The provider implements {@link #readNext(Consumer)} to read the next row from its cursor, and <code>close</code>
+ * to release the cursor; {@link #stream()} then returns a sequential stream that closes the cursor via
+ * <code>Stream.onClose</code>.
+ * <p>
+ * The spliterator does not split, since a cursor can only be read sequentially. It reports
+ * <code>ORDERED</code> when the query defines an ordering, and <code>SIZED</code> only when the number of
+ * results is known in advance, in which case <code>estimateSize</code> returns the exact number of results
+ * remaining as they are consumed.
+ * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+ * @param <X> query result type
+ * @see Query#isStreamingSupported()
+ * @see Query#HINT_FETCH_SIZE
+ */
+public abstract class QueryResultSpliterator<X> implements Spliterator<X>, AutoCloseable
+{
+    /** Value for the size when the number of results is not known in advance. */
+    public static final long UNKNOWN_SIZE = -1;
+
+    /** Number of results not yet consumed, or UNKNOWN_SIZE. */
+    private long remaining;
+
+    private final int characteristics;
+
+    /**
+     * Constructor for a spliterator over results whose number is not known in advance.
+     * @param ordered Whether the query defines an ordering of its results
+     */
+    protected QueryResultSpliterator(boolean ordered)
+    {
+        this(ordered, UNKNOWN_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param ordered Whether the query defines an ordering of its results
+     * @param size The number of results, or {@link #UNKNOWN_SIZE}
+     */
+    protected QueryResultSpliterator(boolean ordered, long size)
+    {
+        this.remaining = size;
+        int chars = 0;
+        if (ordered)
+        {
+            chars |= ORDERED;
+        }
+        if (size >= 0)
+        {
+            chars |= SIZED | SUBSIZED;
+        }
+        this.characteristics = chars;
+    }
+
+    /**
+     * Release the underlying cursor, and any associated statement. Called when the stream is closed, so
+     * must be safe to call more than once, and should not throw.
+     */
+    public abstract void close();
+
+    /**
+     * Read the next result from the cursor, if any, and pass it to the action.
+     * @param action The action to perform on the result
+     * @return false if there are no more results, otherwise true
+     */
+    protected abstract boolean readNext(Consumer<? super X> action);
+
+    /**
+     * Read the next result from the cursor using {@link #readNext(Consumer)}, and update the number of results
+     * remaining.
+     * @param action The action to perform on the result
+     * @return false if there are no more results, otherwise true
+     */
+    public final boolean tryAdvance(Consumer<? super X> action)
+    {
+        if (readNext(action))
+        {
+            if (remaining > 0)
+            {
+                remaining--;
+            }
+            return true;
+        }
+        if (remaining > 0)
+        {
+            // Cursor exhausted, so nothing remains whatever the size given at construction
+            remaining = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Cursors cannot be split, so always returns null.
+     * @return null
+     */
+    public Spliterator<X> trySplit()
+    {
+        return null;
+    }
+
+    /**
+     * The number of results remaining when the size is known, otherwise <code>Long.MAX_VALUE</code>.
+     * @return The number of results remaining
+     */
+    public long estimateSize()
+    {
+        return (remaining >= 0) ? remaining : Long.MAX_VALUE;
+    }
+
+    public int characteristics()
+    {
+        return characteristics;
+    }
+
+    /**
+     * Return a sequential stream over this spliterator that closes the cursor when the stream is closed.
+     * @return The stream
+     */
+    public Stream<X> stream()
+    {
+        return StreamSupport.stream(this, false).onClose(this::close);
+    }
+}
@@ -11,6 +11,8 @@ package javax.persistence;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 /**
  * Interface used to control stored procedure query execution.
@@ -32,6 +34,53 @@ public interface StoredProcedureQuery extends Query
      */
     StoredProcedureQuery setHint(String hintName, Object value);
 
+    /**
+     * Set the maximum number of results to retrieve, allowing for values beyond the range of an int.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param maxResult maximum number of results to retrieve
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @throws PersistenceException if the value is larger than <code>Integer.MAX_VALUE</code> and the persistence
+     * provider doesn't support it
+     * @see Query#setMaxResultsLong(long)
+     */
+    default StoredProcedureQuery setMaxResultsLong(long maxResult)
+    {
+        Query.super.setMaxResultsLong(maxResult);
+        return this;
+    }
+
+    /**
+     * Set the position of the first result to retrieve, allowing for values beyond the range of an int.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param startPosition position of the first result, numbered from 0
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @throws PersistenceException if the value is larger than <code>Integer.MAX_VALUE</code> and the persistence
+     * provider doesn't support it
+     * @see Query#setFirstResultLong(long)
+     */
+    default StoredProcedureQuery setFirstResultLong(long startPosition)
+    {
+        Query.super.setFirstResultLong(startPosition);
+        return this;
+    }
+
+    /**
+     * Set the number of rows to fetch from the datastore per round trip when iterating result sets.
+     * This is equivalent to setting the <code>HINT_FETCH_SIZE</code> hint.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param fetchSize the fetch size
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @see Query#setFetchSize(int)
+     */
+    default StoredProcedureQuery setFetchSize(int fetchSize)
+    {
+        Query.super.setFetchSize(fetchSize);
+        return this;
+    }
+
     /**
      * Bind the value of a Parameter object.
      * @param param parameter object
@@ -185,6 +234,36 @@ public interface StoredProcedureQuery extends Query
      */
     boolean execute();
 
+    /**
+     * Execute the stored procedure asynchronously. By default this method runs <code>execute</code> on the
+     * default executor (using virtual threads where available), however persistence provider may choose to
+     * override this method to execute the procedure without blocking a thread. The results, update counts and
+     * output parameters should only be retrieved once the returned stage completes.
+     * <p>
+     * If the query timeout is exceeded, or the stage is cancelled using <code>toCompletableFuture().cancel</code>,
+     * the query is interrupted and the stage completes exceptionally with a <code>QueryTimeoutException</code> once
+     * the query has stopped executing, so dependent stages never run while the entity manager is still in use.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return a stage completing with true if the first result corresponds to a result set
+     * @see #execute()
+     */
+    default CompletionStage<Boolean> executeAsync()
+    {
+        return executeAsync(null);
+    }
+
+    /**
+     * Execute the stored procedure asynchronously on the specified executor.
+     * See {@link #executeAsync()}.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to run the procedure on (null implies the default executor)
+     * @return a stage completing with true if the first result corresponds to a result set
+     */
+    default CompletionStage<Boolean> executeAsync(Executor executor)
+    {
+        return AsyncExecutionSupport.execute(this, executor, this::execute);
+    }
+
     /**
      * Return true if the next result corresponds to a result set, and false if it is an update count or if
      * there are no results other than through INOUT and OUT parameters, if any.
@@ -207,4 +286,22 @@ public interface StoredProcedureQuery extends Query
      */
     int getUpdateCount();
 
+    /**
+     * Return the update count as a long, or -1 if there is no pending result or if the next result is not an
+     * update count, as for JDBC <code>getLargeUpdateCount</code>.
+     * <p>
+     * By default this method calls <code>getUpdateCount</code>, however the persistence provider may choose to
+     * override this method to support counts beyond the range of an int.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return update count or -1 if there is no pending result or if the next result is not an update count
+     * @throws QueryTimeoutException if the query execution exceeds the query timeout value set and only the
+     * statement is rolled back
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the
+     * transaction is rolled back
+     */
+    default long getLargeUpdateCount()
+    {
+        return getUpdateCount();
+    }
+
 }
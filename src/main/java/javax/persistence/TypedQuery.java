@@ -12,6 +12,10 @@ package javax.persistence;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
@@ -49,7 +53,10 @@ public interface TypedQuery<X> extends Query {
     /**
      * Execute a SELECT query and return the query results as a typed <code>java.util.stream.Stream</code>.
      * By default this method delegates to <code>getResultList().stream()</code>,
-     * however persistence provider may choose to override this method to provide additional capabilities.
+     * however persistence provider may choose to override this method to provide additional capabilities,
+     * such as streaming the results from a cursor (see <code>isStreamingSupported</code>). In that case the stream
+     * should be closed after use to release the cursor, and the fetch size and <code>HINT_STREAM_RESULTS</code>
+     * hints must be honoured.
      *
      * @return a stream of the results
      * @throws IllegalStateException if called for a Java Persistence query language UPDATE or DELETE statement
@@ -92,6 +99,149 @@ public interface TypedQuery<X> extends Query {
 	 */
 	X getSingleResult();
 
+    /**
+     * Return a publisher of the results of a SELECT query, delivering them as demanded by the subscriber.
+     * By default the results are fetched in pages using <code>setFirstResult</code>/<code>setMaxResults</code>,
+     * each page sized by the outstanding demand (capped at the <code>HINT_FETCH_SIZE</code> hint where set), so
+     * that memory use is bounded by demand rather than by the size of the result. Pages are fetched on the default
+     * executor (using virtual threads where available). Persistence provider may choose to override this method to
+     * publish directly from a cursor.
+     * <p>
+     * The publisher supports a single subscriber, and the query and its entity manager must not be used by the
+     * caller until the subscription terminates. Any exception as would be thrown by <code>getResultList</code> is
+     * signalled to <code>onError</code>.
+     * <p>
+     * Since each page is fetched by a separate execution of the query, the query must have an ORDER BY that totally
+     * orders the results (for example ending with the primary key) when using the default implementation. Otherwise
+     * the datastore may return the results in a different order for each page, so that results are skipped or repeated.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return publisher of the results
+     * @see #getResultList()
+     */
+    default Flow.Publisher<X> getResultPublisher()
+    {
+        return getResultPublisher(null);
+    }
+
+    /**
+     * Return a publisher of the results of a SELECT query, fetching pages on the specified executor.
+     * See {@link #getResultPublisher()}.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to fetch pages on (null implies the default executor)
+     * @return publisher of the results
+     */
+    default Flow.Publisher<X> getResultPublisher(Executor executor)
+    {
+        return new QueryResultPublisher<>(this, executor);
+    }
+
+    /**
+     * Execute a SELECT query for a page of results using keyset (seek) pagination. The query should be ordered
+     * by a total ordering, and restricted to results after the keyset of the previous page (if any), for example
+     * using <code>CriteriaQuery.keysetAfter</code>. Unlike paging with <code>setFirstResult</code>, the datastore
+     * doesn't have to read and discard the results of the previous pages, so the cost of a page is independent of
+     * its depth, and concurrent inserts don't cause results to be skipped or repeated.
+     * <p>
+     * By default this method fetches one result more than the page size to determine whether there is a next page,
+     * and uses the key extractor on the last result of the page for the continuation keyset. The max results
+     * of the query are restored afterwards.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param pageSize maximum number of results in the page
+     * @param keyExtractor function returning the values of the ordering expressions for a result, in the order of
+     * the ordering
+     * @return the page of results
+     * @throws IllegalArgumentException if the page size is not positive, or is Integer.MAX_VALUE
+     * @throws IllegalStateException if called for a Java Persistence query language UPDATE or DELETE statement
+     * @throws PersistenceException if the query execution exceeds the query timeout value set and the transaction
+     * is rolled back, or on other execution failure
+     */
+    default KeysetPage<X> getResultPage(int pageSize, Function<? super X, Object[]> keyExtractor)
+    {
+        if (pageSize <= 0 || pageSize == Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Page size must be positive and less than Integer.MAX_VALUE : " + pageSize);
+        }
+
+        int origMaxResults = getMaxResults();
+        List<X> results;
+        try
+        {
+            setMaxResults(pageSize + 1);
+            results = getResultList();
+        }
+        finally
+        {
+            setMaxResults(origMaxResults);
+        }
+
+        if (results.size() <= pageSize)
+        {
+            return new KeysetPage<>(results, null);
+        }
+        List<X> page = results.subList(0, pageSize);
+        return new KeysetPage<>(page, new Keyset(keyExtractor.apply(page.get(pageSize - 1))));
+    }
+
+    /**
+     * Execute a SELECT query asynchronously, returning the query results as a typed List on completion.
+     * By default this method runs <code>getResultList</code> on the default executor (using virtual threads where
+     * available), however persistence provider may choose to override this method to execute the query without
+     * blocking a thread.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return a stage completing with the list of results
+     * @see Query#getResultListAsync()
+     */
+    default CompletionStage<List<X>> getResultListAsync()
+    {
+        return getResultListAsync(null);
+    }
+
+    /**
+     * Execute a SELECT query asynchronously on the specified executor, returning the query results as a typed List
+     * on completion.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to run the query on (null implies the default executor)
+     * @return a stage completing with the list of results
+     * @see Query#getResultListAsync()
+     */
+    default CompletionStage<List<X>> getResultListAsync(Executor executor)
+    {
+        return AsyncExecutionSupport.execute(this, executor, this::getResultList);
+    }
+
+    /**
+     * Execute a SELECT query asynchronously that returns a single result.
+     * By default this method runs <code>getSingleResult</code> on the default executor (using virtual threads
+     * where available), however persistence provider may choose to override this method to execute the query
+     * without blocking a thread.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return a stage completing with the result
+     * @see Query#getSingleResultAsync()
+     */
+    default CompletionStage<X> getSingleResultAsync()
+    {
+        return getSingleResultAsync(null);
+    }
+
+    /**
+     * Execute a SELECT query asynchronously on the specified executor, that returns a single result.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param executor the executor to run the query on (null implies the default executor)
+     * @return a stage completing with the result
+     * @see Query#getSingleResultAsync()
+     */
+    default CompletionStage<X> getSingleResultAsync(Executor executor)
+    {
+        return AsyncExecutionSupport.execute(this, executor, this::getSingleResult);
+    }
+
 	/**
 	 * Set the maximum number of results to retrieve.
 	 *
@@ -115,6 +265,57 @@ public interface TypedQuery<X> extends Query {
 	 */
 	TypedQuery<X> setFirstResult(int startPosition);
 
+    /**
+     * Set the maximum number of results to retrieve, allowing for values beyond the range of an int.
+     * A value of <code>Long.MAX_VALUE</code> means no limit.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param maxResult maximum number of results to retrieve
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @throws PersistenceException if the value is larger than <code>Integer.MAX_VALUE</code> and the persistence
+     * provider doesn't support it
+     * @see Query#setMaxResultsLong(long)
+     */
+    default TypedQuery<X> setMaxResultsLong(long maxResult)
+    {
+        Query.super.setMaxResultsLong(maxResult);
+        return this;
+    }
+
+    /**
+     * Set the position of the first result to retrieve, allowing for values beyond the range of an int.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param startPosition position of the first result, numbered from 0
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @throws PersistenceException if the value is larger than <code>Integer.MAX_VALUE</code> and the persistence
+     * provider doesn't support it
+     * @see Query#setFirstResultLong(long)
+     */
+    default TypedQuery<X> setFirstResultLong(long startPosition)
+    {
+        Query.super.setFirstResultLong(startPosition);
+        return this;
+    }
+
+    /**
+     * Set the number of rows to fetch from the datastore per round trip when iterating the results.
+     * This is equivalent to setting the <code>HINT_FETCH_SIZE</code> hint.
+     *
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param fetchSize the fetch size
+     * @return the same query instance
+     * @throws IllegalArgumentException if the argument is negative
+     * @see Query#setFetchSize(int)
+     */
+    default TypedQuery<X> setFetchSize(int fetchSize)
+    {
+        Query.super.setFetchSize(fetchSize);
+        return this;
+    }
+
 	/**
 	 * Set a query property or hint. The hints elements may be used
 	 * to specify query properties and hints. Properties defined by
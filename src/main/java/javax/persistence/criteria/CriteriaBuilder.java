@@ -13,6 +13,7 @@ import javax.persistence.Tuple;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -1566,4 +1567,51 @@ public interface CriteriaBuilder
     Expression<Number> atan(Expression<Number> expr);
     Expression<Integer> ceil(Expression<Number> expr);
     Expression<Integer> floor(Expression<Number> expr);
+
+    /**
+     * Create a predicate restricting results to those ordered after the specified key values, for keyset (seek)
+     * pagination. For an ordering (a, b, c) this is
+     * <code>(a &gt; v1) OR (a = v1 AND b &gt; v2) OR (a = v1 AND b = v2 AND c &gt; v3)</code>, using
+     * <code>&lt;</code> for descending elements. The ordering must be total (i.e. end with a unique key) for pages to
+     * neither skip nor repeat results, and the key values must not be null.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param ordering The ordering of the query
+     * @param keyValues The values of the ordering expressions for the last result of the previous page
+     * @return seek predicate
+     * @throws IllegalArgumentException if the number of key values doesn't match the ordering, or a key value is null
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    default Predicate keysetAfter(List<Order> ordering, Object... keyValues)
+    {
+        if (ordering.isEmpty() || ordering.size() != keyValues.length)
+        {
+            throw new IllegalArgumentException("Keyset has " + keyValues.length + " values but query has " + ordering.size() + " ordering expressions");
+        }
+
+        Predicate[] alternatives = new Predicate[ordering.size()];
+        for (int i = 0; i < ordering.size(); i++)
+        {
+            Predicate[] terms = new Predicate[i + 1];
+            for (int j = 0; j <= i; j++)
+            {
+                Order order = ordering.get(j);
+                Object value = keyValues[j];
+                if (!(value instanceof Comparable))
+                {
+                    throw new IllegalArgumentException("Keyset value " + j + " must be a non-null Comparable but was " + value);
+                }
+                Expression expr = order.getExpression();
+                if (j < i)
+                {
+                    terms[j] = equal(expr, value);
+                }
+                else
+                {
+                    terms[j] = order.isAscending() ? greaterThan(expr, (Comparable) value) : lessThan(expr, (Comparable) value);
+                }
+            }
+            alternatives[i] = (terms.length == 1) ? terms[0] : and(terms);
+        }
+        return (alternatives.length == 1) ? alternatives[0] : or(alternatives);
+    }
 }
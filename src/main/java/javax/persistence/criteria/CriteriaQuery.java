@@ -11,6 +11,7 @@ package javax.persistence.criteria;
 
 import java.util.List;
 import java.util.Set;
+import javax.persistence.Keyset;
 
 /**
  * The <code>CriteriaQuery</code> interface defines functionality that is specific to top-level queries.
@@ -333,4 +334,23 @@ public interface CriteriaQuery<T> extends AbstractQuery<T> {
 	 * @return the query parameters
 	 */
 	Set<ParameterExpression<?>> getParameters();
+
+	/**
+	 * Restrict the query to the results ordered after the specified keyset, for keyset (seek) pagination.
+	 * The restriction of the query is set to the seek predicate (see {@link CriteriaBuilder#keysetAfter(List, Object...)})
+	 * ANDed with the specified restriction, replacing any existing restriction. The same query can so be reused for
+	 * each page by passing the same restriction each time, without the seek predicates accumulating. The seek
+	 * predicate is based on the current ordering, so the ordering must be specified first and not be changed afterwards.
+	 * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+	 * @param cb Criteria builder
+	 * @param restriction The restriction of the query other than the seek predicate, or null if none
+	 * @param keyset The keyset of the last result of the previous page
+	 * @return the modified query
+	 * @throws IllegalArgumentException if the keyset doesn't match the ordering of the query
+	 */
+	default CriteriaQuery<T> keysetAfter(CriteriaBuilder cb, Predicate restriction, Keyset keyset)
+	{
+		Predicate seek = cb.keysetAfter(getOrderList(), keyset.getValues());
+		return where((restriction != null) ? cb.and(restriction, seek) : seek);
+	}
 }
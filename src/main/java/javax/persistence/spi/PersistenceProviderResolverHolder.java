@@ -13,12 +13,14 @@ import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,7 +30,42 @@ import java.util.logging.Logger;
  */
 public class PersistenceProviderResolverHolder
 {
-    private static PersistenceProviderResolver singleton = new DefaultPersistenceProviderResolver();
+    /**
+     * System property that, when set to "true", makes the default resolver hold the providers it has loaded
+     * strongly rather than through a SoftReference. The providers are then only released when their class loader
+     * is garbage collected or when the cache is cleared, so a GC under memory pressure never causes the
+     * ServiceLoader to rescan the classpath in the middle of a request. Providers are pinned when they are defined
+     * by the system class loader (as in a Java SE application) or by an ancestor of the context class loader (e.g. a
+     * server library loader); where any provider is defined by an application class loader (the context class
+     * loader itself, or a loader below it), holding it strongly would keep that loader reachable, so such providers
+     * are held softly as when not pinned.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static final String PIN_PROVIDERS_PROPERTY = "javax.persistence.spi.pinProviders";
+
+    private static volatile PersistenceProviderResolver singleton = new DefaultPersistenceProviderResolver();
+
+    /**
+     * Providers returned by the resolver for each context class loader, for use by
+     * {@link #getCachedPersistenceProviders()}. The loaders are weakly referenced and the providers softly referenced,
+     * so that the holder does not keep an undeployed application's class loader alive.
+     */
+    private static final ConcurrentMap<Object, ProvidersSnapshot> providersSnapshots = new ConcurrentHashMap<>();
+
+    /** Queue for the references to class loaders used as keys of {@link #providersSnapshots}. */
+    private static final ReferenceQueue<ClassLoader> snapshotQueue = new ReferenceQueue<>();
+
+    /** Providers returned by the resolver when there is no context class loader. */
+    private static volatile ProvidersSnapshot nullLoaderSnapshot;
+
+    /**
+     * Snapshot most recently used for a context class loader, so that repeated calls for the same loader find it
+     * without creating a key to look up {@link #providersSnapshots}.
+     */
+    private static volatile ProvidersSnapshot lastSnapshot;
+
+    /** Incremented whenever cached providers are invalidated, so that a snapshot taken concurrently is discarded. */
+    private static final AtomicInteger providersGeneration = new AtomicInteger();
 
     /**
      * Returns the current persistence provider resolver.
@@ -53,21 +90,119 @@ public class PersistenceProviderResolverHolder
         {
             singleton = resolver;
         }
+        providersGeneration.incrementAndGet();
+    }
+
+    /**
+     * Returns the persistence providers of the current resolver, as returned by its
+     * <code>getPersistenceProviders</code> method. The list is cached for the current context class loader so
+     * repeated calls do not consult the resolver; the cache is reset when the resolver is changed using
+     * {@link #setPersistenceProviderResolver(PersistenceProviderResolver)}, when the default resolver is cleared,
+     * or when {@link #clearCachedProviders()} is called.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return the persistence providers available in the environment
+     */
+    public static List<PersistenceProvider> getCachedPersistenceProviders()
+    {
+        // Read the generation before the resolver, so that a snapshot from a replaced resolver is never current
+        int generation = providersGeneration.get();
+        PersistenceProviderResolver resolver = singleton;
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ProvidersSnapshot snapshot = (loader != null) ? lastSnapshot : nullLoaderSnapshot;
+        if (loader != null && (snapshot == null || snapshot.loaderKey.get() != loader))
+        {
+            snapshot = providersSnapshots.get(new LoaderLookupKey(loader));
+            if (snapshot != null)
+            {
+                lastSnapshot = snapshot;
+            }
+        }
+        if (snapshot != null && snapshot.generation == generation)
+        {
+            List<PersistenceProvider> providers = snapshot.providersRef.get();
+            if (providers != null)
+            {
+                return providers;
+            }
+        }
+
+        List<PersistenceProvider> providers = resolver.getPersistenceProviders();
+        if (loader != null)
+        {
+            expungeStaleSnapshots();
+            WeakLoaderKey loaderKey = new WeakLoaderKey(loader, snapshotQueue);
+            snapshot = new ProvidersSnapshot(generation, providers, loaderKey);
+            providersSnapshots.put(loaderKey, snapshot);
+            lastSnapshot = snapshot;
+        }
+        else
+        {
+            nullLoaderSnapshot = new ProvidersSnapshot(generation, providers, null);
+        }
+        return providers;
+    }
+
+    /**
+     * Remove the snapshots of class loaders that have been garbage collected.
+     */
+    private static void expungeStaleSnapshots()
+    {
+        Object ref;
+        while ((ref = snapshotQueue.poll()) != null)
+        {
+            providersSnapshots.remove(ref);
+        }
+    }
+
+    /**
+     * Clears the providers cached by the current resolver, as well as those cached by this holder.
+     * Use this in preference to calling <code>clearCachedProviders</code> on a custom resolver directly.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     */
+    public static void clearCachedProviders()
+    {
+        singleton.clearCachedProviders();
+        providersGeneration.incrementAndGet();
+        providersSnapshots.clear();
+        nullLoaderSnapshot = null;
+        lastSnapshot = null;
+    }
+
+    /**
+     * Accessor for the number of times that the default resolver has had to rescan the classpath for a class
+     * loader because the providers it had previously loaded were reclaimed by the garbage collector.
+     * In steady state, and always when {@link #PIN_PROVIDERS_PROPERTY} is enabled and the providers can be pinned,
+     * this should not increase.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @return The number of rescans
+     */
+    public static long getProviderRescanCount()
+    {
+        return DefaultPersistenceProviderResolver.rescanCount.sum();
     }
 
     /**
      * Default provider resolver class to use when none is explicitly set. Uses service loading mechanism as
      * described in the Java Persistence specification. A ServiceLoader.load() call is made with the current
      * context classloader to find the service provider files on the classpath.
+     * The loaded providers are held softly unless {@link PersistenceProviderResolverHolder#PIN_PROVIDERS_PROPERTY}
+     * is set and they are defined by the system class loader or an ancestor of the context class loader, in which
+     * case they are held strongly for as long as the context class loader is alive.
      */
     private static class DefaultPersistenceProviderResolver implements PersistenceProviderResolver
     {
+        /** Number of ServiceLoader rescans caused by the GC reclaiming a cached provider list. */
+        static final LongAdder rescanCount = new LongAdder();
+
+        /** Whether to hold loaded providers strongly. */
+        private final boolean pinProviders = Boolean.getBoolean(PIN_PROVIDERS_PROPERTY);
 
         /**
          * Cached list of available providers cached by CacheKey to ensure there is not potential for provider
-         * visibility issues.
+         * visibility issues. Reads are lock-free, and (re)loading for any one CacheKey is performed at most once
+         * at a time so that concurrent bootstrap does not run the ServiceLoader repeatedly.
          */
-        private volatile Map<CacheKey, PersistenceProviderReference> providers = new HashMap<>();
+        private final ConcurrentMap<CacheKey, ProvidersEntry> providers = new ConcurrentHashMap<>();
 
         /**
          * Queue for reference objects referring to class loaders or persistence providers.
@@ -84,50 +219,133 @@ public class PersistenceProviderResolverHolder
 
             ClassLoader loader = getContextClassLoader();
             CacheKey cacheKey = new CacheKey(loader);
-            PersistenceProviderReference providersReferent = this.providers.get(cacheKey);
-            List<PersistenceProvider> loadedProviders = null;
 
-            if (providersReferent != null)
+            // Fast path : providers already loaded for this loader
+            ProvidersEntry entry = this.providers.get(cacheKey);
+            if (entry != null)
             {
-                loadedProviders = providersReferent.get();
+                List<PersistenceProvider> loadedProviders = entry.getProviders();
+                if (loadedProviders != null)
+                {
+                    return loadedProviders;
+                }
             }
+            else
+            {
+                entry = this.providers.computeIfAbsent(cacheKey, ProvidersEntry::new);
+            }
+
+            // Slow path : load the providers, with other threads for the same loader waiting on this load
+            return entry.load(loader);
+        }
 
-            if (loadedProviders == null)
+        /**
+         * Load the persistence providers visible to the specified class loader using the ServiceLoader.
+         * @param loader The class loader (may be null)
+         * @return The providers found
+         */
+        private List<PersistenceProvider> loadProviders(ClassLoader loader)
+        {
+            List<PersistenceProvider> loadedProviders = new ArrayList<>();
+            Iterator<PersistenceProvider> ipp = ServiceLoader.load(PersistenceProvider.class, loader).iterator();
+            try
             {
-                loadedProviders = new ArrayList<>();
-                Iterator<PersistenceProvider> ipp = ServiceLoader.load(PersistenceProvider.class, loader).iterator();
-                try
+                while (ipp.hasNext())
+                {
+                    try
+                    {
+                        PersistenceProvider pp = ipp.next();
+                        loadedProviders.add(pp);
+                    }
+                    catch (ServiceConfigurationError sce)
+                    {
+                        log(Level.FINEST, sce.toString());
+                    }
+                }
+            }
+            catch (ServiceConfigurationError sce)
+            {
+                log(Level.FINEST, sce.toString());
+            }
+
+            return loadedProviders;
+        }
+
+        /**
+         * Whether all of the providers are defined by a class loader that holding them strongly in the cache entry
+         * for the specified loader does not keep alive beyond that entry. That is the case for an ancestor of the
+         * loader, and for the loader itself when it is the system class loader (or one of its ancestors), which is
+         * never collected.
+         * @param providers The providers
+         * @param loader The class loader (may be null)
+         * @return Whether the providers can be pinned
+         */
+        private static boolean isDefinedByAncestors(List<PersistenceProvider> providers, ClassLoader loader)
+        {
+            if (loader == null)
+            {
+                // No context class loader, so the providers were loaded via the system class loader
+                return true;
+            }
+
+            try
+            {
+                boolean systemLoader = isSystemLoaderOrAncestor(loader);
+                for (PersistenceProvider provider : providers)
                 {
-                    while (ipp.hasNext())
+                    ClassLoader providerLoader = provider.getClass().getClassLoader();
+                    if (providerLoader == null)
+                    {
+                        // Bootstrap class loader
+                        continue;
+                    }
+                    if (providerLoader == loader)
                     {
-                        try
+                        if (!systemLoader)
                         {
-                            PersistenceProvider pp = ipp.next();
-                            loadedProviders.add(pp);
+                            return false;
                         }
-                        catch (ServiceConfigurationError sce)
+                        continue;
+                    }
+
+                    boolean ancestor = false;
+                    for (ClassLoader parent = loader.getParent(); parent != null; parent = parent.getParent())
+                    {
+                        if (parent == providerLoader)
                         {
-                            log(Level.FINEST, sce.toString());
+                            ancestor = true;
+                            break;
                         }
                     }
+                    if (!ancestor)
+                    {
+                        return false;
+                    }
                 }
-                catch (ServiceConfigurationError sce)
-                {
-                    log(Level.FINEST, sce.toString());
-                }
+            }
+            catch (SecurityException se)
+            {
+                // Can't determine the hierarchy, so don't pin
+                return false;
+            }
+            return true;
+        }
 
-                // If none are found we'll log the provider names for diagnostic
-                // purposes.
-                if (loadedProviders.isEmpty())
+        /**
+         * Whether the class loader is the system class loader or one of its ancestors.
+         * @param loader The class loader
+         * @return Whether it is
+         */
+        private static boolean isSystemLoaderOrAncestor(ClassLoader loader)
+        {
+            for (ClassLoader systemLoader = ClassLoader.getSystemClassLoader(); systemLoader != null; systemLoader = systemLoader.getParent())
+            {
+                if (systemLoader == loader)
                 {
+                    return true;
                 }
-
-                providersReferent = new PersistenceProviderReference(loadedProviders, referenceQueue, cacheKey);
-
-                this.providers.put(cacheKey, providersReferent);
             }
-
-            return loadedProviders;
+            return false;
         }
 
         /**
@@ -135,10 +353,15 @@ public class PersistenceProviderResolverHolder
          */
         private void processQueue()
         {
-            CacheKeyReference ref;
-            while ((ref = (CacheKeyReference) referenceQueue.poll()) != null)
+            Object ref;
+            while ((ref = referenceQueue.poll()) != null)
             {
-                providers.remove(ref.getCacheKey());
+                if (ref instanceof LoaderReference)
+                {
+                    providers.remove(((LoaderReference) ref).getCacheKey());
+                }
+                // A cleared PersistenceProviderReference is left in place while its class loader is alive,
+                // so that the subsequent reload can be recorded as a rescan
             }
         }
 
@@ -183,6 +406,7 @@ public class PersistenceProviderResolverHolder
         public void clearCachedProviders()
         {
             this.providers.clear();
+            providersGeneration.incrementAndGet();
         }
 
         /**
@@ -320,18 +544,81 @@ public class PersistenceProviderResolverHolder
             }
         }
 
+        /**
+         * Cache entry for the providers of a class loader. The providers are loaded holding the lock of the entry
+         * rather than a lock of the map, so that provider initialisation can re-enter the resolver, and loading for
+         * one class loader does not hold up loading for another.
+         */
+        private class ProvidersEntry
+        {
+            private final CacheKey cacheKey;
+
+            private volatile PersistenceProviderReference providersRef;
+
+            ProvidersEntry(CacheKey cacheKey)
+            {
+                this.cacheKey = cacheKey;
+            }
+
+            /**
+             * Accessor for the loaded providers.
+             * @return The providers, or null if not loaded or reclaimed by the GC
+             */
+            List<PersistenceProvider> getProviders()
+            {
+                PersistenceProviderReference ref = providersRef;
+                return (ref != null) ? ref.get() : null;
+            }
+
+            /**
+             * Load the providers, unless loaded by another thread while waiting for the lock.
+             * @param loader The class loader (may be null)
+             * @return The providers
+             */
+            synchronized List<PersistenceProvider> load(ClassLoader loader)
+            {
+                List<PersistenceProvider> loadedProviders = getProviders();
+                if (loadedProviders != null)
+                {
+                    // Loaded by another thread while we were waiting
+                    return loadedProviders;
+                }
+                if (providersRef != null)
+                {
+                    // Reclaimed by the GC since last loaded
+                    rescanCount.increment();
+                }
+
+                // Keep a strong reference to the list until returned, since the entry may only hold it softly
+                loadedProviders = loadProviders(loader);
+                providersRef = new PersistenceProviderReference(loadedProviders, referenceQueue, cacheKey, pinProviders);
+                return loadedProviders;
+            }
+        }
+
         /**
          * References to persistence provider are soft references so that they can be garbage collected when
-         * they have no hard references.
+         * they have no hard references. When pinned, the providers are additionally held strongly, so are only
+         * released when the entry is removed from the cache (when its class loader is collected, or on clear).
+         * Providers are only pinned when defined by ancestors of the class loader of the entry (or by the system
+         * class loader), since otherwise they would keep that loader reachable.
          */
         private class PersistenceProviderReference extends SoftReference<List<PersistenceProvider>> implements CacheKeyReference
         {
             private CacheKey cacheKey;
 
-            PersistenceProviderReference(List<PersistenceProvider> referent, ReferenceQueue q, CacheKey key)
+            private List<PersistenceProvider> pinnedProviders;
+
+            PersistenceProviderReference(List<PersistenceProvider> referent, ReferenceQueue q, CacheKey key, boolean pinned)
             {
                 super(referent, q);
                 cacheKey = key;
+                pinnedProviders = (pinned && isDefinedByAncestors(referent, key.getLoader())) ? referent : null;
+            }
+
+            public List<PersistenceProvider> get()
+            {
+                return (pinnedProviders != null) ? pinnedProviders : super.get();
             }
 
             public CacheKey getCacheKey()
@@ -340,4 +627,90 @@ public class PersistenceProviderResolverHolder
             }
         }
     }
+
+    /**
+     * Providers returned by the resolver for a context class loader. The providers are only softly referenced, since
+     * they may be defined by the context class loader and so would otherwise keep it alive.
+     */
+    private static class ProvidersSnapshot
+    {
+        final int generation;
+
+        final SoftReference<List<PersistenceProvider>> providersRef;
+
+        /** Key of the snapshot in {@link #providersSnapshots}, weakly referencing the loader (null if no loader). */
+        final WeakLoaderKey loaderKey;
+
+        ProvidersSnapshot(int generation, List<PersistenceProvider> providers, WeakLoaderKey loaderKey)
+        {
+            this.generation = generation;
+            this.providersRef = new SoftReference<>(providers);
+            this.loaderKey = loaderKey;
+        }
+    }
+
+    /**
+     * Key of {@link #providersSnapshots}, weakly referencing the class loader. Equal to a key (or lookup key) for the
+     * same class loader while it is alive, and only to itself once cleared, so that it can still be removed.
+     */
+    private static class WeakLoaderKey extends WeakReference<ClassLoader>
+    {
+        private final int hash;
+
+        WeakLoaderKey(ClassLoader loader, ReferenceQueue<ClassLoader> queue)
+        {
+            super(loader, queue);
+            hash = System.identityHashCode(loader);
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (obj == this)
+            {
+                return true;
+            }
+            ClassLoader loader = get();
+            if (loader == null)
+            {
+                return false;
+            }
+            if (obj instanceof WeakLoaderKey)
+            {
+                return loader == ((WeakLoaderKey) obj).get();
+            }
+            return (obj instanceof LoaderLookupKey) && loader == ((LoaderLookupKey) obj).loader;
+        }
+    }
+
+    /**
+     * Key for looking up {@link #providersSnapshots}, without creating a reference object.
+     */
+    private static class LoaderLookupKey
+    {
+        final ClassLoader loader;
+
+        LoaderLookupKey(ClassLoader loader)
+        {
+            this.loader = loader;
+        }
+
+        public int hashCode()
+        {
+            return System.identityHashCode(loader);
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof WeakLoaderKey)
+            {
+                return loader == ((WeakLoaderKey) obj).get();
+            }
+            return (obj instanceof LoaderLookupKey) && loader == ((LoaderLookupKey) obj).loader;
+        }
+    }
 }
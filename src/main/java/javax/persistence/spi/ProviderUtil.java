@@ -9,6 +9,10 @@
  */
 package javax.persistence.spi;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Utility interface implemented by the persistence provider. This interface is invoked by the
  * {@link javax.persistence.PersistenceUtil} implementation to determine the load status of an entity or
@@ -70,4 +74,28 @@ public interface ProviderUtil
      * @return load status of the entity
      */
     public LoadState isLoaded(Object entity);
+
+    /**
+     * Determine the load state of several attributes of an entity in one call, with the same semantics as
+     * <code>isLoadedWithoutReference</code> for each attribute. The returned map has an entry per attribute, in
+     * the order given.
+     * <p>
+     * By default this method calls <code>isLoadedWithoutReference</code> for each attribute, however the provider
+     * may choose to override this method to answer from its internal state in a single operation.
+     * <p>
+     * The provider's implementation of this method must not obtain a reference to an attribute value.
+     * <b>Note that this is a DataNucleus extension, post JPA2.2</b>
+     * @param entity entity instance
+     * @param attributeNames names of attributes whose load status is to be determined
+     * @return load status of the attributes, keyed by attribute name
+     */
+    default Map<String, LoadState> getLoadState(Object entity, Collection<String> attributeNames)
+    {
+        Map<String, LoadState> loadStates = new LinkedHashMap<>();
+        for (String attributeName : attributeNames)
+        {
+            loadStates.put(attributeName, isLoadedWithoutReference(entity, attributeName));
+        }
+        return loadStates;
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the default asynchronous query execution of AsyncExecutionSupport.
+ */
+public class AsyncExecutionSupportTest
+{
+    /**
+     * On timeout the query is interrupted, and the stage completes on the thread running the query once the query
+     * has returned, rather than on the timer thread while the query is still running.
+     */
+    @Test
+    public void testTimeoutCompletesOnRunnerAfterQueryReturns() throws Exception
+    {
+        AtomicReference<Thread> queryThread = new AtomicReference<>();
+        CountDownLatch queryReturned = new CountDownLatch(1);
+        TypedQuery<Object> query = proxy(Collections.singletonMap(AsyncExecutionSupport.QUERY_TIMEOUT_HINT, 50), () ->
+        {
+            queryThread.set(Thread.currentThread());
+            try
+            {
+                Thread.sleep(10000);
+                fail("Query not interrupted");
+            }
+            catch (InterruptedException ie)
+            {
+                // Interrupted by the timeout, so stop as a provider would
+            }
+            queryReturned.countDown();
+            throw new PersistenceException("Query interrupted");
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            AtomicReference<Thread> completionThread = new AtomicReference<>();
+            AtomicReference<Boolean> returnedWhenCompleted = new AtomicReference<>();
+            CompletableFuture<List<Object>> future = query.getResultListAsync(executor).toCompletableFuture();
+            CompletableFuture<List<Object>> dependent = future.whenComplete((r, t) ->
+            {
+                completionThread.set(Thread.currentThread());
+                returnedWhenCompleted.set(queryReturned.getCount() == 0);
+            });
+
+            try
+            {
+                dependent.get(10, TimeUnit.SECONDS);
+                fail("Expected QueryTimeoutException");
+            }
+            catch (ExecutionException ee)
+            {
+                assertTrue(ee.getCause() instanceof QueryTimeoutException);
+            }
+            assertSame(queryThread.get(), completionThread.get());
+            assertTrue(returnedWhenCompleted.get());
+            assertFalse("Interrupt leaked to the pooled thread", executor.submit(() -> Thread.currentThread().isInterrupted()).get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cancelling before the query starts completes the stage immediately, and the query is then never run.
+     */
+    @Test
+    public void testCancelBeforeStart() throws Exception
+    {
+        AtomicInteger executions = new AtomicInteger();
+        TypedQuery<Object> query = proxy(Collections.emptyMap(), () ->
+        {
+            executions.incrementAndGet();
+            return new ArrayList<>();
+        });
+
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<List<Object>> future = query.getResultListAsync(tasks::add).toCompletableFuture();
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCompletedExceptionally());
+        try
+        {
+            future.join();
+            fail("Expected QueryTimeoutException");
+        }
+        catch (Exception e)
+        {
+            assertTrue(e.getCause() instanceof QueryTimeoutException);
+        }
+
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(0, executions.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TypedQuery<Object> proxy(Map<String, Object> hints, Supplier<List<Object>> results)
+    {
+        return (TypedQuery<Object>) Proxy.newProxyInstance(TypedQuery.class.getClassLoader(), new Class[] {TypedQuery.class},
+            (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "getResultList" :
+                        return results.get();
+                    case "getHints" :
+                        return hints;
+                    default :
+                        if (method.isDefault())
+                        {
+                            return invokeDefault(proxy, method, args);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    private static Object invokeDefault(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        Class<?> declaringClass = method.getDeclaringClass();
+        return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup())
+            .unreflectSpecial(method, declaringClass)
+            .bindTo(proxy)
+            .invokeWithArguments(args);
+    }
+}
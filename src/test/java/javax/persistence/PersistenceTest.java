@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.ProviderUtil;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the parallel bootstrap of several persistence units.
+ */
+public class PersistenceTest
+{
+    @After
+    public void tearDown()
+    {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+    }
+
+    /**
+     * Units are bootstrapped with the context class loader of the caller, even on an executor whose threads have a
+     * different one.
+     */
+    @Test
+    public void testBootstrapUsesCallerContextClassLoader() throws Exception
+    {
+        TestProvider provider = new TestProvider();
+        setProvider(provider);
+
+        ClassLoader callerLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ClassLoader poolLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ExecutorService executor = Executors.newFixedThreadPool(2, r ->
+        {
+            Thread thread = new Thread(r);
+            thread.setContextClassLoader(poolLoader);
+            return thread;
+        });
+
+        Thread thread = Thread.currentThread();
+        ClassLoader origLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(callerLoader);
+        try
+        {
+            Map<String, Map> units = new LinkedHashMap<>();
+            units.put("unit1", null);
+            units.put("unit2", null);
+            PersistenceBootstrapResult result = Persistence.createEntityManagerFactories(units, executor, true);
+
+            assertTrue(result.isSuccessful());
+            assertEquals(2, result.getEntityManagerFactories().size());
+            assertSame(callerLoader, provider.contextLoaders.get("unit1"));
+            assertSame(callerLoader, provider.contextLoaders.get("unit2"));
+
+            // The pool threads get their own loader back
+            assertSame(poolLoader, executor.submit(() -> Thread.currentThread().getContextClassLoader()).get());
+        }
+        finally
+        {
+            thread.setContextClassLoader(origLoader);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * With fail-fast, the first failure is thrown without waiting for units still bootstrapping, and the factories
+     * those units go on to create are closed.
+     */
+    @Test
+    public void testFailFastDoesNotWaitAndClosesLateFactories() throws Exception
+    {
+        TestProvider provider = new TestProvider();
+        setProvider(provider);
+
+        Map<String, Map> units = new LinkedHashMap<>();
+        units.put("slow", null);
+        units.put("bad", null);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Persistence.createEntityManagerFactories(units, executor, true);
+            fail("Expected PersistenceException");
+        }
+        catch (PersistenceException pe)
+        {
+            assertEquals("bad failed", pe.getMessage());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // The slow unit was still bootstrapping when the failure was thrown
+        assertFalse(provider.slowCreated.await(0, TimeUnit.MILLISECONDS));
+        provider.releaseSlow.countDown();
+        assertTrue(provider.slowCreated.await(10, TimeUnit.SECONDS));
+        assertTrue(provider.slowClosed.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void setProvider(final PersistenceProvider provider)
+    {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver()
+        {
+            public List<PersistenceProvider> getPersistenceProviders()
+            {
+                return Collections.singletonList(provider);
+            }
+
+            public void clearCachedProviders()
+            {
+            }
+        });
+    }
+
+    /**
+     * Provider that records the context class loader of each bootstrap. Unit "bad" fails, and unit "slow" blocks,
+     * ignoring interrupts, until released.
+     */
+    static class TestProvider implements PersistenceProvider
+    {
+        final Map<String, ClassLoader> contextLoaders = new ConcurrentHashMap<>();
+
+        final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+        final CountDownLatch slowCreated = new CountDownLatch(1);
+
+        final CountDownLatch slowClosed = new CountDownLatch(1);
+
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map)
+        {
+            contextLoaders.put(emName, Thread.currentThread().getContextClassLoader());
+            if ("bad".equals(emName))
+            {
+                throw new PersistenceException("bad failed");
+            }
+            if ("slow".equals(emName))
+            {
+                boolean interrupted = false;
+                while (true)
+                {
+                    try
+                    {
+                        releaseSlow.await();
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                slowCreated.countDown();
+                return newEntityManagerFactory(slowClosed);
+            }
+            return newEntityManagerFactory(new CountDownLatch(1));
+        }
+
+        private static EntityManagerFactory newEntityManagerFactory(final CountDownLatch closed)
+        {
+            final AtomicBoolean open = new AtomicBoolean(true);
+            return (EntityManagerFactory) Proxy.newProxyInstance(EntityManagerFactory.class.getClassLoader(),
+                new Class[] {EntityManagerFactory.class}, (proxy, method, args) ->
+                {
+                    if ("close".equals(method.getName()))
+                    {
+                        open.set(false);
+                        closed.countDown();
+                        return null;
+                    }
+                    if ("isOpen".equals(method.getName()))
+                    {
+                        return open.get();
+                    }
+                    if ("hashCode".equals(method.getName()))
+                    {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("equals".equals(method.getName()))
+                    {
+                        return proxy == args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map)
+        {
+            return null;
+        }
+
+        public void generateSchema(PersistenceUnitInfo info, Map map)
+        {
+        }
+
+        public boolean generateSchema(String persistenceUnitName, Map map)
+        {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+/**
+ * Benchmark comparing the bootstrap latency of a persistence unit with a declared provider against one found by
+ * probing, with 1, 3 and 10 providers, where each probe parses persistence.xml as a provider would. The unit is owned
+ * by the last provider, the worst case for probing. This is not run as part of the unit tests; run it after
+ * <code>mvn test-compile</code> with
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=javax.persistence.PersistenceUnitProviderIndexBenchmark -Dexec.classpathScope=test
+ * </pre>
+ */
+public class PersistenceUnitProviderIndexBenchmark
+{
+    private static final int WARMUP_ITERATIONS = 200;
+
+    private static final int ITERATIONS = 1000;
+
+    public static void main(String[] args) throws Exception
+    {
+        PersistenceUnitProviderIndexTest fixture = new PersistenceUnitProviderIndexTest();
+        fixture.setUp();
+        try
+        {
+            // Warm up the bootstrap code paths and XML parser, so the first configuration measured is not penalised
+            fixture.setUpProviders(10);
+            measure("declared");
+            measure("undeclared");
+
+            for (int numProviders : new int[] {1, 3, 10})
+            {
+                fixture.setUpProviders(numProviders);
+                long declared = measure("declared");
+                long probed = measure("undeclared");
+                System.out.println(String.format("Bootstrap latency with %2d providers : declared %6d ns, probed %6d ns",
+                    numProviders, declared, probed));
+            }
+        }
+        finally
+        {
+            fixture.tearDown();
+        }
+    }
+
+    /**
+     * Measure the mean latency of bootstrapping a persistence unit.
+     * @param unitName Name of the unit
+     * @return Mean latency in nanoseconds
+     */
+    private static long measure(String unitName)
+    {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+        {
+            Persistence.createEntityManagerFactory(unitName);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            Persistence.createEntityManagerFactory(unitName);
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
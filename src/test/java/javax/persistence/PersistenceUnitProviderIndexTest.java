@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
+import javax.persistence.spi.ProviderUtil;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.helpers.DefaultHandler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests for dispatching bootstrap to the provider declared in persistence.xml.
+ * See {@link PersistenceUnitProviderIndexBenchmark} for the corresponding benchmark, which uses this fixture.
+ */
+public class PersistenceUnitProviderIndexTest
+{
+    private static final Class<?>[] PROVIDER_CLASSES = {Provider0.class, Provider1.class, Provider2.class,
+        Provider3.class, Provider4.class, Provider5.class, Provider6.class, Provider7.class, Provider8.class,
+        Provider9.class};
+
+    private File persistenceXml;
+
+    private ClassLoader origLoader;
+
+    @Before
+    public void setUp()
+    {
+        origLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown()
+    {
+        Thread.currentThread().setContextClassLoader(origLoader);
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+        if (persistenceXml != null)
+        {
+            persistenceXml.delete();
+        }
+    }
+
+    @Test
+    public void testDeclaredProviderIsNotProbed() throws Exception
+    {
+        List<ProbeProvider> providers = setUpProviders(10);
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("declared");
+        assertNotNull(emf);
+
+        // Only the declared (last) provider was asked
+        for (int i = 0; i < providers.size() - 1; i++)
+        {
+            assertEquals(0, providers.get(i).probeCount.get());
+        }
+        assertEquals(1, providers.get(providers.size() - 1).probeCount.get());
+
+        // An undeclared unit still falls back to probing every provider
+        assertNotNull(Persistence.createEntityManagerFactory("undeclared"));
+        for (ProbeProvider provider : providers)
+        {
+            assertEquals(provider == providers.get(providers.size() - 1) ? 2 : 1, provider.probeCount.get());
+        }
+    }
+
+    /**
+     * Set up the specified number of providers, and a persistence.xml declaring the last of them as the provider of
+     * unit "declared", and no provider for unit "undeclared". Both units are owned by the last provider.
+     * @param numProviders Number of providers
+     * @return The providers
+     */
+    List<ProbeProvider> setUpProviders(int numProviders) throws Exception
+    {
+        final List<ProbeProvider> providers = new ArrayList<>();
+        for (int i = 0; i < numProviders; i++)
+        {
+            providers.add((ProbeProvider) PROVIDER_CLASSES[i].getDeclaredConstructor().newInstance());
+        }
+        ProbeProvider owner = providers.get(numProviders - 1);
+        owner.owner = true;
+
+        if (persistenceXml != null)
+        {
+            persistenceXml.delete();
+        }
+        persistenceXml = File.createTempFile("persistence", ".xml");
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<persistence xmlns=\"http://xmlns.jcp.org/xml/ns/persistence\" version=\"2.2\">\n" +
+            "  <persistence-unit name=\"declared\">\n" +
+            "    <provider>" + owner.getClass().getName() + "</provider>\n" +
+            "  </persistence-unit>\n" +
+            "  <persistence-unit name=\"undeclared\"/>\n" +
+            "</persistence>\n";
+        Files.write(persistenceXml.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        for (ProbeProvider provider : providers)
+        {
+            provider.persistenceXml = persistenceXml;
+        }
+
+        // New loader, so that the index is built afresh
+        Thread.currentThread().setContextClassLoader(new PersistenceXmlClassLoader(persistenceXml.toURI().toURL()));
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver()
+        {
+            public List<PersistenceProvider> getPersistenceProviders()
+            {
+                return Collections.<PersistenceProvider>unmodifiableList(providers);
+            }
+
+            public void clearCachedProviders()
+            {
+            }
+        });
+        return providers;
+    }
+
+    /**
+     * Class loader serving the persistence.xml file.
+     */
+    static class PersistenceXmlClassLoader extends ClassLoader
+    {
+        private final URL persistenceXmlUrl;
+
+        PersistenceXmlClassLoader(URL persistenceXmlUrl)
+        {
+            super(PersistenceUnitProviderIndexTest.class.getClassLoader());
+            this.persistenceXmlUrl = persistenceXmlUrl;
+        }
+
+        public Enumeration<URL> getResources(String name) throws IOException
+        {
+            if ("META-INF/persistence.xml".equals(name))
+            {
+                return Collections.enumeration(Collections.singletonList(persistenceXmlUrl));
+            }
+            return super.getResources(name);
+        }
+    }
+
+    /**
+     * Provider that parses persistence.xml on each probe, as a real provider does, and creates a factory only when it
+     * is the owner of the units.
+     */
+    public abstract static class ProbeProvider implements PersistenceProvider
+    {
+        final AtomicInteger probeCount = new AtomicInteger();
+
+        volatile boolean owner;
+
+        volatile File persistenceXml;
+
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map)
+        {
+            probeCount.incrementAndGet();
+            try
+            {
+                SAXParserFactory.newInstance().newSAXParser().parse(persistenceXml, new DefaultHandler());
+            }
+            catch (Exception e)
+            {
+                throw new PersistenceException("Error parsing persistence.xml", e);
+            }
+            return owner ? (EntityManagerFactory) Proxy.newProxyInstance(
+                EntityManagerFactory.class.getClassLoader(), new Class[] {EntityManagerFactory.class}, (p, m, a) -> null) : null;
+        }
+
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map)
+        {
+            return null;
+        }
+
+        public void generateSchema(PersistenceUnitInfo info, Map map)
+        {
+        }
+
+        public boolean generateSchema(String persistenceUnitName, Map map)
+        {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil()
+        {
+            return null;
+        }
+    }
+
+    public static class Provider0 extends ProbeProvider {}
+    public static class Provider1 extends ProbeProvider {}
+    public static class Provider2 extends ProbeProvider {}
+    public static class Provider3 extends ProbeProvider {}
+    public static class Provider4 extends ProbeProvider {}
+    public static class Provider5 extends ProbeProvider {}
+    public static class Provider6 extends ProbeProvider {}
+    public static class Provider7 extends ProbeProvider {}
+    public static class Provider8 extends ProbeProvider {}
+    public static class Provider9 extends ProbeProvider {}
+}
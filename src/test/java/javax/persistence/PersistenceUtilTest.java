@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.spi.LoadState;
+import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolver;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceProviderResolverHolderTest;
+import javax.persistence.spi.ProviderUtil;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the PersistenceUtil returned by Persistence.getPersistenceUtil.
+ */
+public class PersistenceUtilTest
+{
+    @After
+    public void tearDown()
+    {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+    }
+
+    /**
+     * The provider remembered for an entity class is dispatched to directly, and is not kept reachable by the entity
+     * class once the resolver (and the cache of its providers) no longer holds it, as when the provider is undeployed.
+     */
+    @Test
+    public void testProviderAffinityDoesNotPinProvider() throws Exception
+    {
+        Entity1 entity = new Entity1();
+        UtilProvider unknownProvider = new UtilProvider(LoadState.UNKNOWN);
+        UtilProvider provider = new UtilProvider(LoadState.NOT_LOADED);
+        setProviders(unknownProvider, provider);
+
+        PersistenceUtil util = Persistence.getPersistenceUtil();
+        assertFalse(util.isLoaded(entity));
+        assertFalse(util.isLoaded(entity));
+        assertEquals(1, unknownProvider.calls);
+        assertEquals(2, provider.calls);
+
+        WeakReference<UtilProvider> providerRef = new WeakReference<>(provider);
+        unknownProvider = null;
+        provider = null;
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+        PersistenceProviderResolverHolder.clearCachedProviders();
+
+        for (int i = 0; i < 10 && providerRef.get() != null; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("Provider still reachable", providerRef.get());
+    }
+
+    private static void setProviders(PersistenceProvider... providers)
+    {
+        final List<PersistenceProvider> providerList = Collections.unmodifiableList(Arrays.asList(providers));
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver()
+        {
+            public List<PersistenceProvider> getPersistenceProviders()
+            {
+                return providerList;
+            }
+
+            public void clearCachedProviders()
+            {
+            }
+        });
+    }
+
+    static class Entity1
+    {
+    }
+
+    /**
+     * Provider whose ProviderUtil returns a fixed load state, counting the calls.
+     */
+    static class UtilProvider extends PersistenceProviderResolverHolderTest.TestProvider implements ProviderUtil
+    {
+        final LoadState loadState;
+
+        int calls;
+
+        UtilProvider(LoadState loadState)
+        {
+            this.loadState = loadState;
+        }
+
+        public ProviderUtil getProviderUtil()
+        {
+            return this;
+        }
+
+        public LoadState isLoadedWithoutReference(Object entity, String attributeName)
+        {
+            calls++;
+            return loadState;
+        }
+
+        public LoadState isLoadedWithReference(Object entity, String attributeName)
+        {
+            calls++;
+            return loadState;
+        }
+
+        public LoadState isLoaded(Object entity)
+        {
+            calls++;
+            return loadState;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for QueryResultPublisher, the default implementation of TypedQuery.getResultPublisher.
+ */
+public class QueryResultPublisherTest
+{
+    /** Runs drain tasks on the requesting thread, so the tests are deterministic. */
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    public void testCompletesWhenMaxResultsReached()
+    {
+        ListQuery results = new ListQuery(20);
+        TypedQuery<Integer> query = results.proxy();
+        query.setMaxResults(5);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        query.getResultPublisher(DIRECT).subscribe(subscriber);
+        subscriber.subscription.request(5);
+
+        assertEquals(list(0, 5), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertEquals(1, results.executions);
+        assertEquals(5, query.getMaxResults());
+    }
+
+    @Test
+    public void testCompletesWhenDemandMatchesResultCount()
+    {
+        ListQuery results = new ListQuery(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        results.proxy().getResultPublisher(DIRECT).subscribe(subscriber);
+        subscriber.subscription.request(10);
+
+        assertEquals(list(0, 10), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertEquals(1, results.executions);
+    }
+
+    @Test
+    public void testPagesByDemand()
+    {
+        ListQuery results = new ListQuery(25);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        results.proxy().getResultPublisher(DIRECT).subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        assertEquals(list(0, 10), subscriber.items);
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(10);
+        assertEquals(list(0, 20), subscriber.items);
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(10);
+        assertEquals(list(0, 25), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testRequestFromOnNext()
+    {
+        ListQuery results = new ListQuery(7);
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        {
+            public void onNext(Integer item)
+            {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        results.proxy().getResultPublisher(DIRECT).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        assertEquals(list(0, 7), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testOnNextExceptionCancels()
+    {
+        ListQuery results = new ListQuery(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        {
+            public void onNext(Integer item)
+            {
+                super.onNext(item);
+                throw new IllegalStateException("subscriber failure");
+            }
+        };
+        results.proxy().getResultPublisher(DIRECT).subscribe(subscriber);
+        subscriber.subscription.request(5);
+        subscriber.subscription.request(5);
+
+        assertEquals(list(0, 1), subscriber.items);
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testNonPositiveRequestSignalsError()
+    {
+        ListQuery results = new ListQuery(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        results.proxy().getResultPublisher(DIRECT).subscribe(subscriber);
+        subscriber.subscription.request(2);
+        subscriber.subscription.request(0);
+        subscriber.subscription.request(2);
+
+        assertEquals(list(0, 2), subscriber.items);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testCancelReleasesBufferedResults() throws Exception
+    {
+        ListQuery results = new ListQuery(10);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        results.proxy().getResultPublisher(DIRECT).subscribe(subscriber);
+        subscriber.subscription.request(3);
+        assertEquals(list(0, 3), subscriber.items);
+
+        // The page was fetched with an extra result, held until demanded
+        Field bufferField = subscriber.subscription.getClass().getDeclaredField("buffer");
+        bufferField.setAccessible(true);
+        assertEquals(1, ((Collection<?>) bufferField.get(subscriber.subscription)).size());
+
+        subscriber.subscription.cancel();
+        assertTrue(((Collection<?>) bufferField.get(subscriber.subscription)).isEmpty());
+
+        subscriber.subscription.request(3);
+        assertEquals(list(0, 3), subscriber.items);
+        assertFalse(subscriber.completed);
+    }
+
+    private static List<Integer> list(int from, int to)
+    {
+        List<Integer> list = new ArrayList<>();
+        for (int i = from; i < to; i++)
+        {
+            list.add(i);
+        }
+        return list;
+    }
+
+    static class RecordingSubscriber implements Flow.Subscriber<Integer>
+    {
+        final List<Integer> items = new ArrayList<>();
+
+        Flow.Subscription subscription;
+
+        boolean completed;
+
+        Throwable error;
+
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        public void onNext(Integer item)
+        {
+            assertFalse("onNext after termination", completed || error != null);
+            items.add(item);
+        }
+
+        public void onError(Throwable throwable)
+        {
+            assertFalse("onError after termination", completed || error != null);
+            error = throwable;
+        }
+
+        public void onComplete()
+        {
+            assertFalse("onComplete after termination", completed || error != null);
+            completed = true;
+        }
+    }
+
+    /**
+     * TypedQuery over the integers 0 to size-1, honouring first/max results and counting executions.
+     */
+    static class ListQuery
+    {
+        final int size;
+
+        int firstResult;
+
+        int maxResults = Integer.MAX_VALUE;
+
+        final Map<String, Object> hints = new HashMap<>();
+
+        int executions;
+
+        ListQuery(int size)
+        {
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        TypedQuery<Integer> proxy()
+        {
+            return (TypedQuery<Integer>) Proxy.newProxyInstance(TypedQuery.class.getClassLoader(), new Class[] {TypedQuery.class},
+                (proxy, method, args) ->
+                {
+                    switch (method.getName())
+                    {
+                        case "getResultList" :
+                            executions++;
+                            return list(Math.min(firstResult, size), (int) Math.min((long) firstResult + maxResults, size));
+                        case "getFirstResult" :
+                            return firstResult;
+                        case "getMaxResults" :
+                            return maxResults;
+                        case "setFirstResult" :
+                            firstResult = (Integer) args[0];
+                            return proxy;
+                        case "setMaxResults" :
+                            maxResults = (Integer) args[0];
+                            return proxy;
+                        case "getHints" :
+                            return hints;
+                        default :
+                            if (method.isDefault())
+                            {
+                                return invokeDefault(proxy, method, args);
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+
+        private static Object invokeDefault(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            Class<?> declaringClass = method.getDeclaringClass();
+            return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup())
+                .unreflectSpecial(method, declaringClass)
+                .bindTo(proxy)
+                .invokeWithArguments(args);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for QueryResultSpliterator.
+ */
+public class QueryResultSpliteratorTest
+{
+    @Test
+    public void testSizedEstimateIsRemainingCount()
+    {
+        ListSpliterator spliterator = new ListSpliterator(Arrays.asList("a", "b", "c"), true);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(3, spliterator.estimateSize());
+        assertEquals(3, spliterator.getExactSizeIfKnown());
+
+        assertTrue(spliterator.tryAdvance(x -> {}));
+        assertEquals(2, spliterator.estimateSize());
+        assertTrue(spliterator.tryAdvance(x -> {}));
+        assertTrue(spliterator.tryAdvance(x -> {}));
+        assertEquals(0, spliterator.estimateSize());
+        assertFalse(spliterator.tryAdvance(x -> {}));
+        assertEquals(0, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testUnknownSize()
+    {
+        ListSpliterator spliterator = new ListSpliterator(Arrays.asList("a", "b"), false);
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+        assertTrue(spliterator.tryAdvance(x -> {}));
+        assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testStreamClosesCursor()
+    {
+        ListSpliterator spliterator = new ListSpliterator(Arrays.asList("a", "b", "c"), true);
+        try (Stream<String> stream = spliterator.stream())
+        {
+            assertEquals(Arrays.asList("a", "b"), stream.limit(2).collect(Collectors.toList()));
+        }
+        assertTrue(spliterator.closed);
+    }
+
+    /**
+     * Spliterator reading from a list, as a cursor would.
+     */
+    static class ListSpliterator extends QueryResultSpliterator<String>
+    {
+        private final Iterator<String> iterator;
+
+        boolean closed;
+
+        ListSpliterator(List<String> results, boolean sized)
+        {
+            super(true, sized ? results.size() : UNKNOWN_SIZE);
+            this.iterator = results.iterator();
+        }
+
+        protected boolean readNext(Consumer<? super String> action)
+        {
+            if (!iterator.hasNext())
+            {
+                return false;
+            }
+            action.accept(iterator.next());
+            return true;
+        }
+
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence.criteria;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.Keyset;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the default implementation of CriteriaQuery.keysetAfter.
+ */
+public class CriteriaQueryKeysetAfterTest
+{
+    private final CriteriaBuilder cb = builder();
+
+    @Test
+    public void testSeekPredicateReplacedForEachPage()
+    {
+        QueryState state = new QueryState();
+        CriteriaQuery<Object> query = state.proxy();
+
+        query.keysetAfter(cb, null, new Keyset(10));
+        assertEquals("gt(id,10)", state.restriction.toString());
+
+        System.gc();
+        query.keysetAfter(cb, null, new Keyset(20));
+        assertEquals("gt(id,20)", state.restriction.toString());
+
+        System.gc();
+        query.keysetAfter(cb, null, new Keyset(30));
+        assertEquals("gt(id,30)", state.restriction.toString());
+    }
+
+    @Test
+    public void testRestrictionKept()
+    {
+        QueryState state = new QueryState();
+        CriteriaQuery<Object> query = state.proxy();
+        Predicate active = predicate("active");
+
+        query.keysetAfter(cb, active, new Keyset(10));
+        assertEquals("and(active,gt(id,10))", state.restriction.toString());
+
+        System.gc();
+        query.keysetAfter(cb, active, new Keyset(20));
+        assertEquals("and(active,gt(id,20))", state.restriction.toString());
+    }
+
+    @Test
+    public void testRestrictionChangedBetweenPages()
+    {
+        QueryState state = new QueryState();
+        CriteriaQuery<Object> query = state.proxy();
+
+        query.keysetAfter(cb, null, new Keyset(10));
+        query.keysetAfter(cb, predicate("active"), new Keyset(20));
+        assertEquals("and(active,gt(id,20))", state.restriction.toString());
+
+        query.keysetAfter(cb, predicate("archived"), new Keyset(30));
+        assertEquals("and(archived,gt(id,30))", state.restriction.toString());
+    }
+
+    private static Predicate predicate(String description)
+    {
+        return (Predicate) Proxy.newProxyInstance(Predicate.class.getClassLoader(), new Class[] {Predicate.class},
+            (proxy, method, args) ->
+            {
+                if (method.getName().equals("toString"))
+                {
+                    return description;
+                }
+                if (method.getName().equals("equals"))
+                {
+                    return proxy == args[0];
+                }
+                if (method.getName().equals("hashCode"))
+                {
+                    return System.identityHashCode(proxy);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    private static String describe(Object[] args)
+    {
+        List<Object> values = (args.length == 1 && args[0] instanceof Object[]) ? Arrays.asList((Object[]) args[0]) : Arrays.asList(args);
+        return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * CriteriaBuilder whose predicates describe how they were built, for example "and(active,gt(id,10))".
+     */
+    private static CriteriaBuilder builder()
+    {
+        return (CriteriaBuilder) Proxy.newProxyInstance(CriteriaBuilder.class.getClassLoader(), new Class[] {CriteriaBuilder.class},
+            (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "and" :
+                    case "or" :
+                    case "equal" :
+                        return predicate(method.getName() + "(" + describe(args) + ")");
+                    case "greaterThan" :
+                        return predicate("gt(" + describe(args) + ")");
+                    case "lessThan" :
+                        return predicate("lt(" + describe(args) + ")");
+                    default :
+                        if (method.isDefault())
+                        {
+                            return invokeDefault(proxy, method, args);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    private static Object invokeDefault(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        Class<?> declaringClass = method.getDeclaringClass();
+        return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup())
+            .unreflectSpecial(method, declaringClass)
+            .bindTo(proxy)
+            .invokeWithArguments(args);
+    }
+
+    /**
+     * CriteriaQuery ordered by ascending "id", holding only its restriction.
+     */
+    static class QueryState
+    {
+        Predicate restriction;
+
+        @SuppressWarnings("unchecked")
+        CriteriaQuery<Object> proxy()
+        {
+            Expression<?> id = (Expression<?>) Proxy.newProxyInstance(Expression.class.getClassLoader(), new Class[] {Expression.class},
+                (proxy, method, args) ->
+                {
+                    if (method.getName().equals("toString"))
+                    {
+                        return "id";
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+            Order order = (Order) Proxy.newProxyInstance(Order.class.getClassLoader(), new Class[] {Order.class},
+                (proxy, method, args) ->
+                {
+                    switch (method.getName())
+                    {
+                        case "getExpression" :
+                            return id;
+                        case "isAscending" :
+                            return true;
+                        default :
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+            return (CriteriaQuery<Object>) Proxy.newProxyInstance(CriteriaQuery.class.getClassLoader(), new Class[] {CriteriaQuery.class},
+                (proxy, method, args) ->
+                {
+                    switch (method.getName())
+                    {
+                        case "getOrderList" :
+                            return Collections.singletonList(order);
+                        case "getRestriction" :
+                            return restriction;
+                        case "where" :
+                            restriction = (Predicate) ((args[0] instanceof Object[]) ? ((Object[]) args[0])[0] : args[0]);
+                            return proxy;
+                        case "equals" :
+                            return proxy == args[0];
+                        case "hashCode" :
+                            return System.identityHashCode(proxy);
+                        default :
+                            if (method.isDefault())
+                            {
+                                return invokeDefault(proxy, method, args);
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2008, 2009, 2011 Oracle, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 and Eclipse Distribution License v. 1.0
+ * which accompanies this distribution.  The Eclipse Public License is available
+ * at http://www.eclipse.org/legal/epl-v10.html and the Eclipse Distribution License
+ * is available at http://www.eclipse.org/org/documents/edl-v10.php.
+ */
+package javax.persistence.spi;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the default PersistenceProviderResolver, and the provider cache of PersistenceProviderResolverHolder.
+ */
+public class PersistenceProviderResolverHolderTest
+{
+    private static final String SERVICE_FILE = "META-INF/services/" + PersistenceProvider.class.getName();
+
+    private File serviceFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        serviceFile = File.createTempFile("persistence-provider", ".txt");
+        Files.write(serviceFile.toPath(), TestProvider.class.getName().getBytes(StandardCharsets.UTF_8));
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+    }
+
+    @After
+    public void tearDown()
+    {
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+        serviceFile.delete();
+    }
+
+    /**
+     * Many threads bootstrapping at the same moment, across several context class loaders, must run the
+     * ServiceLoader exactly once per loader, and all see the same providers for a loader.
+     */
+    @Test
+    public void testConcurrentLoadScansOncePerLoader() throws Exception
+    {
+        final int numLoaders = 4;
+        final int numThreads = 32;
+        final int callsPerThread = 1000;
+
+        final List<CountingClassLoader> loaders = new ArrayList<>();
+        for (int i = 0; i < numLoaders; i++)
+        {
+            loaders.add(new CountingClassLoader(serviceFile.toURI().toURL()));
+        }
+
+        final PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try
+        {
+            List<Future<List<PersistenceProvider>>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++)
+            {
+                final CountingClassLoader loader = loaders.get(i % numLoaders);
+                futures.add(executor.submit(() ->
+                {
+                    Thread.currentThread().setContextClassLoader(loader);
+                    start.await();
+                    List<PersistenceProvider> first = resolver.getPersistenceProviders();
+                    for (int j = 1; j < callsPerThread; j++)
+                    {
+                        assertSame(first, resolver.getPersistenceProviders());
+                    }
+                    return first;
+                }));
+            }
+
+            start.countDown();
+
+            List<List<PersistenceProvider>> results = new ArrayList<>();
+            for (Future<List<PersistenceProvider>> future : futures)
+            {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+
+            for (int i = 0; i < numThreads; i++)
+            {
+                List<PersistenceProvider> providers = results.get(i);
+                assertEquals(1, providers.size());
+                assertTrue(providers.get(0) instanceof TestProvider);
+                assertSame(results.get(i % numLoaders), providers);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        for (CountingClassLoader loader : loaders)
+        {
+            assertEquals("ServiceLoader scans for " + loader, 1, loader.scanCount.get());
+        }
+    }
+
+    /**
+     * A provider that uses the resolver while being loaded (for example from a static initialiser calling
+     * <code>Persistence.getPersistenceUtil()</code>) must not break the load of the providers.
+     */
+    @Test
+    public void testProviderInitialisationReentersResolver() throws Exception
+    {
+        File reentrantServiceFile = File.createTempFile("persistence-provider", ".txt");
+        try
+        {
+            Files.write(reentrantServiceFile.toPath(), ReentrantProvider.class.getName().getBytes(StandardCharsets.UTF_8));
+            CountingClassLoader loader = new CountingClassLoader(reentrantServiceFile.toURI().toURL());
+
+            Thread thread = Thread.currentThread();
+            ClassLoader origLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            try
+            {
+                List<PersistenceProvider> providers = PersistenceProviderResolverHolder.getPersistenceProviderResolver().getPersistenceProviders();
+                assertEquals(1, providers.size());
+                assertTrue(providers.get(0) instanceof ReentrantProvider);
+                assertNotNull(ReentrantProvider.providersDuringInit);
+            }
+            finally
+            {
+                thread.setContextClassLoader(origLoader);
+            }
+        }
+        finally
+        {
+            reentrantServiceFile.delete();
+        }
+    }
+
+    /**
+     * With pinning enabled, providers defined by the system class loader (here listed in the service file of the test
+     * classpath) are held strongly, so running out of memory does not cause the classpath to be rescanned.
+     */
+    @Test
+    public void testPinnedSystemLoaderProvidersSurviveMemoryPressure()
+    {
+        String origPin = System.getProperty(PersistenceProviderResolverHolder.PIN_PROVIDERS_PROPERTY);
+        Thread thread = Thread.currentThread();
+        ClassLoader origLoader = thread.getContextClassLoader();
+        System.setProperty(PersistenceProviderResolverHolder.PIN_PROVIDERS_PROPERTY, "true");
+        thread.setContextClassLoader(ClassLoader.getSystemClassLoader());
+        try
+        {
+            PersistenceProviderResolverHolder.setPersistenceProviderResolver(null);
+            PersistenceProviderResolver resolver = PersistenceProviderResolverHolder.getPersistenceProviderResolver();
+            long rescanCount = PersistenceProviderResolverHolder.getProviderRescanCount();
+
+            List<PersistenceProvider> providers = resolver.getPersistenceProviders();
+            assertTrue(providers.stream().anyMatch(provider -> provider.getClass() == TestProvider.class));
+            providers = null;
+
+            SoftReference<Object> softRef = new SoftReference<>(new Object());
+            exhaustMemory();
+            assertNull("Soft references not cleared", softRef.get());
+
+            resolver.getPersistenceProviders();
+            assertEquals(0, PersistenceProviderResolverHolder.getProviderRescanCount() - rescanCount);
+        }
+        finally
+        {
+            thread.setContextClassLoader(origLoader);
+            if (origPin == null)
+            {
+                System.clearProperty(PersistenceProviderResolverHolder.PIN_PROVIDERS_PROPERTY);
+            }
+            else
+            {
+                System.setProperty(PersistenceProviderResolverHolder.PIN_PROVIDERS_PROPERTY, origPin);
+            }
+        }
+    }
+
+    /**
+     * Allocate until out of memory, which the JVM guarantees to be preceded by clearing all soft references.
+     */
+    private static void exhaustMemory()
+    {
+        List<long[]> chunks = new ArrayList<>();
+        try
+        {
+            while (true)
+            {
+                chunks.add(new long[1 << 21]);
+            }
+        }
+        catch (OutOfMemoryError oom)
+        {
+            chunks.clear();
+        }
+    }
+
+    /**
+     * The providers of the resolver are cached per context class loader, so that interleaving threads with different
+     * context class loaders consult the resolver once per loader, until the cache is cleared.
+     */
+    @Test
+    public void testCachedProvidersPerLoader() throws Exception
+    {
+        final Map<ClassLoader, AtomicInteger> resolveCounts = new ConcurrentHashMap<>();
+        PersistenceProviderResolverHolder.setPersistenceProviderResolver(new PersistenceProviderResolver()
+        {
+            public List<PersistenceProvider> getPersistenceProviders()
+            {
+                ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                resolveCounts.computeIfAbsent(loader, l -> new AtomicInteger()).incrementAndGet();
+                return Collections.<PersistenceProvider>singletonList(new TestProvider());
+            }
+
+            public void clearCachedProviders()
+            {
+            }
+        });
+
+        ClassLoader loader1 = new CountingClassLoader(serviceFile.toURI().toURL());
+        ClassLoader loader2 = new CountingClassLoader(serviceFile.toURI().toURL());
+        Thread thread = Thread.currentThread();
+        ClassLoader origLoader = thread.getContextClassLoader();
+        try
+        {
+            thread.setContextClassLoader(loader1);
+            List<PersistenceProvider> providers1 = PersistenceProviderResolverHolder.getCachedPersistenceProviders();
+            thread.setContextClassLoader(loader2);
+            List<PersistenceProvider> providers2 = PersistenceProviderResolverHolder.getCachedPersistenceProviders();
+            for (int i = 0; i < 100; i++)
+            {
+                thread.setContextClassLoader(loader1);
+                assertSame(providers1, PersistenceProviderResolverHolder.getCachedPersistenceProviders());
+                thread.setContextClassLoader(loader2);
+                assertSame(providers2, PersistenceProviderResolverHolder.getCachedPersistenceProviders());
+            }
+            assertEquals(1, resolveCounts.get(loader1).get());
+            assertEquals(1, resolveCounts.get(loader2).get());
+
+            PersistenceProviderResolverHolder.clearCachedProviders();
+            thread.setContextClassLoader(loader1);
+            PersistenceProviderResolverHolder.getCachedPersistenceProviders();
+            assertEquals(2, resolveCounts.get(loader1).get());
+        }
+        finally
+        {
+            thread.setContextClassLoader(origLoader);
+        }
+    }
+
+    /**
+     * Repeated lookups of the cached providers for the same context class loader do not allocate.
+     */
+    @Test
+    public void testCachedProvidersLookupDoesNotAllocate() throws Exception
+    {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported())
+        {
+            // Allocation can't be measured on this JVM
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        Thread thread = Thread.currentThread();
+        ClassLoader origLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(new CountingClassLoader(serviceFile.toURI().toURL()));
+        try
+        {
+            List<PersistenceProvider> providers = PersistenceProviderResolverHolder.getCachedPersistenceProviders();
+            long threadId = thread.getId();
+            long before = allocationBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 10000; i++)
+            {
+                assertSame(providers, PersistenceProviderResolverHolder.getCachedPersistenceProviders());
+            }
+            long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+            assertTrue("Allocated " + allocated + " bytes", allocated < 10000);
+        }
+        finally
+        {
+            thread.setContextClassLoader(origLoader);
+        }
+    }
+
+    /**
+     * Class loader that serves the provider configuration file, counting the number of ServiceLoader scans.
+     */
+    static class CountingClassLoader extends ClassLoader
+    {
+        final AtomicInteger scanCount = new AtomicInteger();
+
+        private final URL serviceUrl;
+
+        CountingClassLoader(URL serviceUrl)
+        {
+            super(PersistenceProviderResolverHolderTest.class.getClassLoader());
+            this.serviceUrl = serviceUrl;
+        }
+
+        public Enumeration<URL> getResources(String name) throws IOException
+        {
+            if (SERVICE_FILE.equals(name))
+            {
+                scanCount.incrementAndGet();
+                return Collections.enumeration(Collections.singletonList(serviceUrl));
+            }
+            return super.getResources(name);
+        }
+    }
+
+    /**
+     * Provider that consults the resolver from its static initialiser.
+     */
+    public static class ReentrantProvider extends TestProvider
+    {
+        static final List<PersistenceProvider> providersDuringInit = PersistenceProviderResolverHolder.getPersistenceProviderResolver().getPersistenceProviders();
+    }
+
+    public static class TestProvider implements PersistenceProvider
+    {
+        public EntityManagerFactory createEntityManagerFactory(String emName, Map map)
+        {
+            return null;
+        }
+
+        public EntityManagerFactory createContainerEntityManagerFactory(PersistenceUnitInfo info, Map map)
+        {
+            return null;
+        }
+
+        public void generateSchema(PersistenceUnitInfo info, Map map)
+        {
+        }
+
+        public boolean generateSchema(String persistenceUnitName, Map map)
+        {
+            return false;
+        }
+
+        public ProviderUtil getProviderUtil()
+        {
+            return null;
+        }
+    }
+}